@@ -1,21 +1,123 @@
 -- TuckTruck Database Schema
--- This file is for reference only - Hibernate will auto-create tables
+-- Hibernate creates and updates these tables in the default and prod profiles
+-- (ddl-auto=update). The fast profile only validates the schema, so apply this file
+-- (or start once without that profile) before switching to it. Column types follow
+-- what Hibernate generates for MySQL 8, so a database created either way validates.
 
 CREATE DATABASE IF NOT EXISTS tucktruck;
 USE tucktruck;
 
--- Users table (auto-created by Hibernate)
--- CREATE TABLE users (
---     id BIGINT AUTO_INCREMENT PRIMARY KEY,
---     name VARCHAR(255) NOT NULL,
---     email VARCHAR(255) UNIQUE NOT NULL,
---     password VARCHAR(255) NOT NULL,
---     phone VARCHAR(20),
---     role VARCHAR(50) NOT NULL,
---     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
---     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
--- );
-
--- Sample data (optional)
--- INSERT INTO users (name, email, password, phone, role) VALUES
--- ('Admin User', 'admin@tucktruck.com', '$2a$10$...', '1234567890', 'ADMIN');
+CREATE TABLE IF NOT EXISTS users (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    address VARCHAR(255),
+    email VARCHAR(255) NOT NULL,
+    is_online BIT,
+    license_number VARCHAR(255),
+    name VARCHAR(255),
+    password VARCHAR(255) NOT NULL,
+    phone VARCHAR(255),
+    role ENUM ('CUSTOMER','DRIVER','ADMIN') NOT NULL,
+    vehicle_number VARCHAR(255),
+    vehicle_type VARCHAR(255),
+    PRIMARY KEY (id),
+    UNIQUE (email)
+);
+
+CREATE TABLE IF NOT EXISTS bookings (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    completed_at DATETIME(6),
+    created_at DATETIME(6) NOT NULL,
+    customer_notes VARCHAR(255),
+    customer_phone VARCHAR(255),
+    distance FLOAT(53),
+    driver_assigned_at DATETIME(6),
+    driver_notes VARCHAR(255),
+    drop_latitude FLOAT(53),
+    drop_location VARCHAR(255) NOT NULL,
+    drop_longitude FLOAT(53),
+    estimated_price FLOAT(53),
+    final_price FLOAT(53),
+    is_paid BIT,
+    load_weight_kg FLOAT(53),
+    payment_method VARCHAR(255),
+    payment_overdue BIT,
+    pickup_latitude FLOAT(53),
+    pickup_location VARCHAR(255) NOT NULL,
+    pickup_longitude FLOAT(53),
+    previous_driver_id BIGINT,
+    scheduled_at DATETIME(6),
+    status ENUM ('CREATED','SEARCHING_DRIVER','DRIVER_ASSIGNED','DRIVER_REACHED_PICKUP','TRIP_STARTED','IN_TRANSIT','COMPLETED','CANCELLED','PAID') NOT NULL,
+    surge_multiplier FLOAT(53),
+    trip_started_at DATETIME(6),
+    vehicle_type VARCHAR(255) NOT NULL,
+    version BIGINT NOT NULL,
+    customer_id BIGINT NOT NULL,
+    driver_id BIGINT,
+    PRIMARY KEY (id),
+    FOREIGN KEY (customer_id) REFERENCES users (id),
+    FOREIGN KEY (driver_id) REFERENCES users (id)
+);
+
+CREATE TABLE IF NOT EXISTS locations (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    address VARCHAR(255),
+    latitude FLOAT(53),
+    longitude FLOAT(53),
+    timestamp DATETIME(6),
+    booking_id BIGINT NOT NULL,
+    driver_id BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    FOREIGN KEY (booking_id) REFERENCES bookings (id),
+    FOREIGN KEY (driver_id) REFERENCES users (id)
+);
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    booking_id BIGINT NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    expires_at DATETIME(6) NOT NULL,
+    idempotency_key VARCHAR(191) NOT NULL,
+    request_hash VARCHAR(64) NOT NULL,
+    PRIMARY KEY (id),
+    UNIQUE (idempotency_key)
+);
+
+-- Driver earnings journal (append-only) and its daily settlement runs
+CREATE TABLE IF NOT EXISTS ledger_entries (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    amount FLOAT(53) NOT NULL,
+    booking_id BIGINT,
+    commission FLOAT(53),
+    created_at DATETIME(6) NOT NULL,
+    driver_id BIGINT NOT NULL,
+    entry_type ENUM ('EARNING','CASH_COLLECTED','PAYMENT_RECEIVED','SETTLEMENT') NOT NULL,
+    gross_fare FLOAT(53),
+    settlement_batch_id BIGINT,
+    PRIMARY KEY (id),
+    UNIQUE (booking_id, entry_type),
+    INDEX idx_ledger_driver_time (driver_id, created_at),
+    INDEX idx_ledger_batch (settlement_batch_id)
+);
+
+CREATE TABLE IF NOT EXISTS settlement_batches (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    business_date DATE NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    driver_count INTEGER,
+    entry_count INTEGER,
+    from_entry_id BIGINT NOT NULL,
+    to_entry_id BIGINT NOT NULL,
+    total_collected FLOAT(53),
+    total_payout FLOAT(53),
+    PRIMARY KEY (id),
+    UNIQUE (business_date)
+);
+
+-- Written by the primary and read back from the read replica to measure replication lag
+-- (only used with tucktruck.datasource.replica.enabled=true)
+CREATE TABLE IF NOT EXISTS replica_heartbeat (
+    id INT NOT NULL PRIMARY KEY,
+    beat_at BIGINT NOT NULL
+);
+
+-- The admin user is created at startup by DataInitializer (admin@tucktruck.com)
@@ -0,0 +1,108 @@
+#!/usr/bin/env bash
+# Time-to-first-request of the default and the fast startup configuration.
+#
+#   mvn -Pfast clean package -DskipTests
+#   scripts/startup-benchmark.sh [runs]
+#
+# Run from backend/. Both configurations start against the same database; point them at
+# it the usual way (SPRING_DATASOURCE_URL, ...) and set EXTRA_PROFILES=prod to add the
+# prod profile to both. Time-to-first-request is measured from process launch until
+# GET /api/test answers; the report is also written to target/startup-benchmark.txt.
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${PORT:-18080}
+TIMEOUT_S=${TIMEOUT_S:-180}
+URL="http://localhost:${PORT}/api/test"
+JAR=target/backend-0.0.1-SNAPSHOT.jar
+APP=target/app/backend-0.0.1-SNAPSHOT.jar
+ARCHIVE=target/app/application.jsa
+REPORT=target/startup-benchmark.txt
+
+profiles() {
+    if [ -n "${EXTRA_PROFILES:-}" ]; then
+        echo "${EXTRA_PROFILES}${1:+,$1}"
+    else
+        echo "${1:-default}"
+    fi
+}
+
+if [ ! -f "$JAR" ] || [ ! -f "$APP" ]; then
+    echo "Build first: mvn -Pfast clean package -DskipTests" >&2
+    exit 1
+fi
+
+FAST_FLAGS=(-Dspring.aot.enabled=true)
+if [ -f "$ARCHIVE" ]; then
+    FAST_FLAGS+=(-XX:SharedArchiveFile="$ARCHIVE")
+else
+    echo "No CDS archive at $ARCHIVE (training run skipped?); fast runs use AOT and lazy init only" >&2
+fi
+
+# run <mode> <java args...>: prints "<time-to-first-request ms> <Spring 'Started in' ms>"
+run() {
+    local mode=$1 log=target/startup-$1.log
+    shift
+    local start
+    start=$(date +%s%N)
+    java "$@" --server.port="$PORT" >"$log" 2>&1 &
+    local pid=$!
+    local ttfr=""
+    while [ $(( ($(date +%s%N) - start) / 1000000000 )) -lt "$TIMEOUT_S" ]; do
+        if curl -fs -o /dev/null "$URL"; then
+            ttfr=$(( ($(date +%s%N) - start) / 1000000 ))
+            break
+        fi
+        if ! kill -0 "$pid" 2>/dev/null; then
+            break
+        fi
+        sleep 0.05
+    done
+    kill "$pid" 2>/dev/null || true
+    wait "$pid" 2>/dev/null || true
+    if [ -z "$ttfr" ]; then
+        echo "$mode did not answer within ${TIMEOUT_S}s, see $log" >&2
+        exit 1
+    fi
+    local started
+    started=$(sed -n 's/.*Started BackendApplication in \([0-9.]*\) seconds.*/\1/p' "$log" | head -1)
+    echo "$ttfr $(awk -v s="${started:-0}" 'BEGIN { printf "%d", s * 1000 }')"
+}
+
+# summary <label> <values...>: min / median / max
+summary() {
+    local label=$1
+    shift
+    local sorted
+    sorted=$(printf '%s\n' "$@" | sort -n)
+    local count=$#
+    printf '  %-22s min %6d  median %6d  max %6d ms\n' "$label" \
+        "$(echo "$sorted" | head -1)" \
+        "$(echo "$sorted" | sed -n "$(( (count + 1) / 2 ))p")" \
+        "$(echo "$sorted" | tail -1)"
+}
+
+declare -a default_ttfr default_started fast_ttfr fast_started
+for i in $(seq 1 "$RUNS"); do
+    t=
+    read -r t s < <(run default -Dspring.profiles.active="$(profiles "")" -jar "$JAR") || true
+    [ -n "${t:-}" ] || exit 1
+    default_ttfr+=("$t")
+    default_started+=("$s")
+    t=
+    read -r t s < <(run fast "${FAST_FLAGS[@]}" -Dspring.profiles.active="$(profiles fast)" -jar "$APP") || true
+    [ -n "${t:-}" ] || exit 1
+    fast_ttfr+=("$t")
+    fast_started+=("$s")
+    echo "run $i/$RUNS: default ${default_ttfr[-1]} ms, fast ${fast_ttfr[-1]} ms" >&2
+done
+
+{
+    echo "Startup benchmark, $RUNS runs each, $(date -u +%Y-%m-%dT%H:%M:%SZ)"
+    echo "default ($(profiles ""), ddl-auto=update, eager beans)"
+    summary "time to first request" "${default_ttfr[@]}"
+    summary "Spring 'Started in'" "${default_started[@]}"
+    echo "fast ($(profiles fast), AOT$( [ -f "$ARCHIVE" ] && echo ", CDS"), lazy init, ddl-auto=validate)"
+    summary "time to first request" "${fast_ttfr[@]}"
+    summary "Spring 'Started in'" "${fast_started[@]}"
+} | tee "$REPORT"
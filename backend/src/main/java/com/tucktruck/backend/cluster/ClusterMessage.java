@@ -0,0 +1,14 @@
+package com.tucktruck.backend.cluster;
+
+// Message exchanged between backend nodes. payload is JSON.
+public record ClusterMessage(Type type, String origin, String destination, String payload) {
+
+    public enum Type {
+        TOPIC, // deliver payload to a STOMP destination on every node
+        DRIVER_LOCATION, // replicate a driver position into the live-location cache
+        DRIVER_OFFLINE, // remove a driver from the live-location cache
+        BOOKING_CHANGED, // a booking committed a new status on the origin node
+        USER_CHANGED, // a user's profile changed or the user was deleted; payload is the user id
+        HEARTBEAT // keeps idle links open and tells peers this node is alive
+    }
+}
@@ -0,0 +1,18 @@
+package com.tucktruck.backend.cluster;
+
+import java.util.Set;
+import java.util.function.Consumer;
+
+// Transport SPI used to share real-time state between backend nodes.
+// broadcast() delivers to the listeners of every node, including the local one.
+public interface ClusterTransport {
+
+    String nodeId();
+
+    void broadcast(ClusterMessage.Type type, String destination, String payload);
+
+    void addListener(Consumer<ClusterMessage> listener);
+
+    // Node ids currently reachable (always contains the local node)
+    Set<String> members();
+}
@@ -0,0 +1,37 @@
+package com.tucktruck.backend.cluster;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Single node: messages go straight to the local listeners.
+public class LocalClusterTransport implements ClusterTransport {
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final List<Consumer<ClusterMessage>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void broadcast(ClusterMessage.Type type, String destination, String payload) {
+        ClusterMessage message = new ClusterMessage(type, nodeId, destination, payload);
+        for (Consumer<ClusterMessage> listener : listeners) {
+            listener.accept(message);
+        }
+    }
+
+    @Override
+    public void addListener(Consumer<ClusterMessage> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public Set<String> members() {
+        return Set.of(nodeId);
+    }
+}
@@ -0,0 +1,281 @@
+package com.tucktruck.backend.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+// Multi-node transport: every node listens on a TCP port and keeps one outbound
+// link to each configured peer. Messages are length-prefixed JSON frames sent
+// directly to every peer (full mesh, no forwarding), at most once. Several
+// instances on localhost with different ports form a working cluster.
+// The listener binds to one address (loopback unless configured) and only reads frames
+// from connections that answered a challenge with HMAC-SHA256(shared secret, nonce).
+// Frames are not encrypted; keep the cluster port on a private network.
+@Slf4j
+public class TcpMeshClusterTransport implements ClusterTransport, AutoCloseable {
+
+    private static final int MAX_FRAME_BYTES = 1 << 20;
+    private static final long HEARTBEAT_MS = 5_000;
+    private static final long MEMBER_TIMEOUT_MS = 3 * HEARTBEAT_MS;
+    private static final long RECONNECT_MS = 1_000;
+    private static final int HANDSHAKE_TIMEOUT_MS = 5_000;
+    private static final int NONCE_BYTES = 32;
+    private static final String HMAC = "HmacSHA256";
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final int port;
+    private final String bindAddress;
+    private final SecretKeySpec secret;
+    private final SecureRandom random = new SecureRandom();
+    private final List<PeerLink> links;
+    private final ObjectMapper objectMapper;
+    private final List<Consumer<ClusterMessage>> listeners = new CopyOnWriteArrayList<>();
+    private final Map<String, Long> lastSeen = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private volatile boolean running;
+    private ServerSocket serverSocket;
+
+    public TcpMeshClusterTransport(String bindAddress, int port, String secret, List<InetSocketAddress> peers,
+            int queueCapacity, ObjectMapper objectMapper) {
+        if (secret == null || secret.isBlank()) {
+            throw new RuntimeException("tucktruck.cluster.secret is required for the mesh transport");
+        }
+        this.bindAddress = bindAddress;
+        this.port = port;
+        this.secret = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC);
+        this.objectMapper = objectMapper;
+        this.links = peers.stream().map(address -> new PeerLink(address, queueCapacity)).toList();
+    }
+
+    public void start() throws IOException {
+        running = true;
+        serverSocket = new ServerSocket(port, 50, InetAddress.getByName(bindAddress));
+        executor.submit(this::acceptLoop);
+        for (PeerLink link : links) {
+            executor.submit(link::run);
+        }
+        log.info("Cluster node {} listening on {}:{} with {} peer(s)", nodeId, bindAddress, port, links.size());
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException ignored) {
+            // shutting down
+        }
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void broadcast(ClusterMessage.Type type, String destination, String payload) {
+        ClusterMessage message = new ClusterMessage(type, nodeId, destination, payload);
+        deliver(message);
+
+        byte[] frame;
+        try {
+            frame = objectMapper.writeValueAsBytes(message);
+        } catch (IOException e) {
+            log.warn("Could not encode cluster message {}", type, e);
+            return;
+        }
+        for (PeerLink link : links) {
+            link.offer(frame);
+        }
+    }
+
+    @Override
+    public void addListener(Consumer<ClusterMessage> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public Set<String> members() {
+        long cutoff = System.currentTimeMillis() - MEMBER_TIMEOUT_MS;
+        Set<String> members = new HashSet<>();
+        members.add(nodeId);
+        lastSeen.forEach((id, seen) -> {
+            if (seen >= cutoff) {
+                members.add(id);
+            }
+        });
+        return members;
+    }
+
+    private void deliver(ClusterMessage message) {
+        if (message.type() == ClusterMessage.Type.HEARTBEAT) {
+            return;
+        }
+        for (Consumer<ClusterMessage> listener : listeners) {
+            try {
+                listener.accept(message);
+            } catch (RuntimeException e) {
+                log.warn("Cluster listener failed for {}", message.type(), e);
+            }
+        }
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                executor.submit(() -> readLoop(socket));
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Cluster accept failed", e);
+                }
+            }
+        }
+    }
+
+    private void readLoop(Socket socket) {
+        try (socket; DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            // Challenge the peer before reading any frame
+            byte[] nonce = new byte[NONCE_BYTES];
+            random.nextBytes(nonce);
+            socket.setSoTimeout(HANDSHAKE_TIMEOUT_MS);
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.write(nonce);
+            out.flush();
+            byte[] expected = sign(nonce);
+            byte[] answer = new byte[expected.length];
+            in.readFully(answer);
+            if (!MessageDigest.isEqual(answer, expected)) {
+                log.warn("Cluster connection from {} failed authentication", socket.getRemoteSocketAddress());
+                return;
+            }
+            socket.setSoTimeout(0);
+
+            while (running) {
+                int length = in.readInt();
+                if (length <= 0 || length > MAX_FRAME_BYTES) {
+                    throw new IOException("Invalid frame length " + length);
+                }
+                byte[] frame = new byte[length];
+                in.readFully(frame);
+                ClusterMessage message = objectMapper.readValue(frame, ClusterMessage.class);
+                if (nodeId.equals(message.origin())) {
+                    continue;
+                }
+                lastSeen.put(message.origin(), System.currentTimeMillis());
+                deliver(message);
+            }
+        } catch (IOException e) {
+            if (running) {
+                log.debug("Cluster peer {} disconnected", socket.getRemoteSocketAddress());
+            }
+        }
+    }
+
+    private byte[] sign(byte[] nonce) {
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(secret);
+            return mac.doFinal(nonce);
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("HMAC-SHA256 unavailable", e);
+        }
+    }
+
+    // Outbound link to one peer; reconnects forever, drops frames while the queue is full and
+    // the frame being written when the connection breaks (receivers detect gaps themselves)
+    private final class PeerLink {
+        private final InetSocketAddress address;
+        private final BlockingQueue<byte[]> queue;
+
+        PeerLink(InetSocketAddress address, int queueCapacity) {
+            this.address = address;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+
+        void offer(byte[] frame) {
+            queue.offer(frame);
+        }
+
+        void run() {
+            while (running) {
+                try (Socket socket = new Socket()) {
+                    // Resolve on every attempt so peers that come up later are found
+                    socket.connect(new InetSocketAddress(address.getHostString(), address.getPort()),
+                            (int) RECONNECT_MS * 2);
+                    socket.setTcpNoDelay(true);
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+                    // Answer the listener's challenge
+                    socket.setSoTimeout(HANDSHAKE_TIMEOUT_MS);
+                    byte[] nonce = new byte[NONCE_BYTES];
+                    new DataInputStream(socket.getInputStream()).readFully(nonce);
+                    out.write(sign(nonce));
+                    out.flush();
+                    socket.setSoTimeout(0);
+
+                    byte[] heartbeat = objectMapper.writeValueAsBytes(
+                            new ClusterMessage(ClusterMessage.Type.HEARTBEAT, nodeId, null, null));
+                    write(out, heartbeat);
+                    while (running) {
+                        byte[] frame = queue.poll(HEARTBEAT_MS, TimeUnit.MILLISECONDS);
+                        write(out, frame != null ? frame : heartbeat);
+                    }
+                } catch (IOException e) {
+                    sleepBeforeReconnect();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        private void write(DataOutputStream out, byte[] frame) throws IOException {
+            out.writeInt(frame.length);
+            out.write(frame);
+            if (queue.isEmpty()) {
+                out.flush();
+            }
+        }
+
+        private void sleepBeforeReconnect() {
+            try {
+                Thread.sleep(RECONNECT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
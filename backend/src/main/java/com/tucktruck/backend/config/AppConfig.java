@@ -24,6 +24,7 @@ public class AppConfig {
                         .allowedOrigins("http://localhost:5173", "http://localhost:3000") // Allow frontend dev server
                         .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                         .allowedHeaders("*")
+                        .exposedHeaders("Idempotent-Replayed", "ETag")
                         .allowCredentials(true);
             }
         };
@@ -0,0 +1,54 @@
+package com.tucktruck.backend.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tucktruck.backend.cluster.ClusterTransport;
+import com.tucktruck.backend.cluster.LocalClusterTransport;
+import com.tucktruck.backend.cluster.TcpMeshClusterTransport;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.List;
+
+// Picks the cluster transport: "local" (default, single node) or "mesh" (several nodes).
+@Configuration
+public class ClusterConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "tucktruck.cluster.transport", havingValue = "local", matchIfMissing = true)
+    public ClusterTransport localClusterTransport() {
+        return new LocalClusterTransport();
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "tucktruck.cluster.transport", havingValue = "mesh")
+    public ClusterTransport meshClusterTransport(
+            @Value("${tucktruck.cluster.bind-address:127.0.0.1}") String bindAddress,
+            @Value("${tucktruck.cluster.port:9701}") int port,
+            @Value("${tucktruck.cluster.secret:}") String secret,
+            @Value("${tucktruck.cluster.peers:}") String peers,
+            @Value("${tucktruck.cluster.queue-capacity:10000}") int queueCapacity,
+            ObjectMapper objectMapper) throws IOException {
+        TcpMeshClusterTransport transport = new TcpMeshClusterTransport(bindAddress, port, secret, parsePeers(peers),
+                queueCapacity, objectMapper);
+        transport.start();
+        return transport;
+    }
+
+    // "host1:9701,host2:9702"
+    private static List<InetSocketAddress> parsePeers(String peers) {
+        return Arrays.stream(peers.split(","))
+                .map(String::trim)
+                .filter(peer -> !peer.isEmpty())
+                .map(peer -> {
+                    int colon = peer.lastIndexOf(':');
+                    return InetSocketAddress.createUnresolved(peer.substring(0, colon),
+                            Integer.parseInt(peer.substring(colon + 1)));
+                })
+                .toList();
+    }
+}
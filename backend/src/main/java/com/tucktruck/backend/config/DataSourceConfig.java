@@ -0,0 +1,119 @@
+package com.tucktruck.backend.config;
+
+import com.tucktruck.backend.datasource.ReplicaLagMonitor;
+import com.tucktruck.backend.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+// Read-replica routing, on with tucktruck.datasource.replica.enabled=true. Without it
+// Spring Boot's single auto-configured pool is used as before.
+//   primaryDataSource   spring.datasource.*, Hikari settings from spring.datasource.hikari.*
+//   replicaDataSource   tucktruck.datasource.replica.* (user and password default to the primary's)
+//   dataSource          lazy proxy -> ReplicaRoutingDataSource, used by JPA
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "tucktruck.datasource.replica.enabled", havingValue = "true")
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("tucktruck.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+            @Value("${tucktruck.datasource.replica.url}") String url,
+            @Value("${tucktruck.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${tucktruck.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName("replica");
+        // A write routed here by mistake fails instead of diverging from the primary
+        dataSource.setReadOnly(true);
+        // Fail over to the primary quickly when the replica is down
+        dataSource.setConnectionTimeout(2000);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+            HikariDataSource replicaDataSource) {
+        return new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    @Bean
+    @Lazy(false)
+    public ReplicaLagMonitor replicaLagMonitor(HikariDataSource primaryDataSource,
+            HikariDataSource replicaDataSource, ReplicaRoutingDataSource replicaRoutingDataSource,
+            @Value("${tucktruck.datasource.replica.max-lag-ms:3000}") long maxLagMs) {
+        return new ReplicaLagMonitor(primaryDataSource, replicaDataSource, replicaRoutingDataSource, maxLagMs);
+    }
+
+    // Hand the connection back after every transaction (Boot's default holds it for the whole
+    // EntityManager, i.e. the request with open-in-view), so each transaction is routed afresh
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionAfterTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    // Local testing with two embedded H2 databases (application-replica.properties): the
+    // replica has no replication of its own, so link every primary table into it read-only
+    @Bean
+    @ConditionalOnProperty(name = "tucktruck.datasource.replica.h2-link-primary", havingValue = "true")
+    public ApplicationRunner linkH2ReplicaToPrimary(HikariDataSource primaryDataSource,
+            HikariDataSource replicaDataSource) {
+        return args -> {
+            JdbcTemplate primary = new JdbcTemplate(primaryDataSource);
+            List<String> tables = primary.queryForList("SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES "
+                    + "WHERE TABLE_SCHEMA = 'PUBLIC' AND TABLE_TYPE = 'BASE TABLE'", String.class);
+            // The pool is read-only; DDL goes through a plain connection
+            JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(replicaDataSource.getJdbcUrl(),
+                    replicaDataSource.getUsername(), nullToEmpty(replicaDataSource.getPassword())));
+            for (String table : tables) {
+                replica.execute("CREATE LINKED TABLE IF NOT EXISTS \"" + table + "\"('', '"
+                        + primaryDataSource.getJdbcUrl() + "', '" + primaryDataSource.getUsername() + "', '"
+                        + nullToEmpty(primaryDataSource.getPassword()) + "', 'PUBLIC', '" + table + "') READONLY");
+            }
+            log.info("Linked {} primary tables into the H2 replica", tables.size());
+        };
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
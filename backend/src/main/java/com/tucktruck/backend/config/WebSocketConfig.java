@@ -11,6 +11,7 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         // Enable a simple in-memory message broker
+        // (one per node; RealtimeRelayService fans messages out across the cluster)
         config.enableSimpleBroker("/topic", "/queue");
 
         // Prefix for messages FROM client TO server
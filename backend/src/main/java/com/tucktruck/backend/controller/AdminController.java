@@ -1,13 +1,26 @@
 package com.tucktruck.backend.controller;
 
+import com.tucktruck.backend.cluster.ClusterTransport;
+import com.tucktruck.backend.datasource.ReplicaRoutingDataSource;
 import com.tucktruck.backend.entity.*;
 import com.tucktruck.backend.repository.*;
+import com.tucktruck.backend.dto.BookingResponse;
+import com.tucktruck.backend.dto.ConsolidationPlan;
+import com.tucktruck.backend.dto.UserResponse;
+import com.tucktruck.backend.service.AdminReportService;
+import com.tucktruck.backend.service.BookingResponseCache;
 import com.tucktruck.backend.service.BookingService;
+import com.tucktruck.backend.service.BookingTimeoutService;
+import com.tucktruck.backend.service.ConsolidationService;
+import com.tucktruck.backend.service.GeofenceService;
+import com.tucktruck.backend.service.LocationFilterService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -19,82 +32,122 @@ public class AdminController {
 
     private final UserRepository userRepository;
     private final BookingService bookingService;
-    private final BookingRepository bookingRepository;
+    private final AdminReportService adminReportService;
+    private final BookingResponseCache bookingResponseCache;
+    private final ClusterTransport clusterTransport;
+    private final GeofenceService geofenceService;
+    private final LocationFilterService locationFilterService;
+    private final ConsolidationService consolidationService;
+    private final BookingTimeoutService bookingTimeoutService;
+    private final ObjectProvider<ReplicaRoutingDataSource> replicaRoutingDataSource;
 
     // GET ALL USERS
     @GetMapping("/users")
-    public ResponseEntity<List<User>> getAllUsers() {
-        List<User> users = userRepository.findAll();
-        return ResponseEntity.ok(users);
+    public ResponseEntity<List<UserResponse>> getAllUsers() {
+        List<User> users = adminReportService.getAllUsers();
+        return ResponseEntity.ok(users.stream().map(UserResponse::from).toList());
     }
 
     // GET ALL DRIVERS
     @GetMapping("/drivers")
-    public ResponseEntity<List<User>> getAllDrivers() {
-        List<User> drivers = userRepository.findByRole(Role.DRIVER);
-        return ResponseEntity.ok(drivers);
+    public ResponseEntity<List<UserResponse>> getAllDrivers() {
+        List<User> drivers = adminReportService.getDrivers();
+        return ResponseEntity.ok(drivers.stream().map(UserResponse::from).toList());
     }
 
     // GET AVAILABLE DRIVERS (online drivers)
     @GetMapping("/drivers/available")
-    public ResponseEntity<List<User>> getAvailableDrivers() {
-        List<User> drivers = userRepository.findByRole(Role.DRIVER);
-        // Filter online drivers
-        List<User> onlineDrivers = drivers.stream()
-                .filter(driver -> driver.getIsOnline() != null && driver.getIsOnline())
-                .toList();
-        return ResponseEntity.ok(onlineDrivers);
+    public ResponseEntity<List<UserResponse>> getAvailableDrivers() {
+        List<User> drivers = adminReportService.getOnlineDrivers();
+        return ResponseEntity.ok(drivers.stream().map(UserResponse::from).toList());
     }
 
     // GET ALL BOOKINGS
     @GetMapping("/bookings")
-    public ResponseEntity<List<Booking>> getAllBookings() {
+    public ResponseEntity<List<BookingResponse>> getAllBookings() {
         List<Booking> bookings = bookingService.getAllBookings();
-        return ResponseEntity.ok(bookings);
+        return ResponseEntity.ok(bookings.stream().map(BookingResponse::from).toList());
+    }
+
+    // GET COMPLETED BOOKINGS NOT PAID WITHIN THE PAYMENT WINDOW
+    @GetMapping("/bookings/overdue-payments")
+    public ResponseEntity<List<BookingResponse>> getOverduePayments() {
+        return ResponseEntity.ok(bookingService.getOverduePayments().stream().map(BookingResponse::from).toList());
     }
 
     // GET DASHBOARD STATISTICS
     @GetMapping("/stats")
     public ResponseEntity<Map<String, Object>> getDashboardStats() {
-        Map<String, Object> stats = new HashMap<>();
-
-        // Total users
-        long totalUsers = userRepository.count();
-        long totalDrivers = userRepository.findByRole(Role.DRIVER).size();
-        long totalCustomers = userRepository.findByRole(Role.CUSTOMER).size();
-
-        // Total bookings
-        long totalBookings = bookingRepository.count();
-        long activeBookings = bookingRepository.findByStatus(BookingStatus.TRIP_STARTED).size() +
-                bookingRepository.findByStatus(BookingStatus.IN_TRANSIT).size();
-        long completedBookings = bookingRepository.findByStatus(BookingStatus.COMPLETED).size();
-        long pendingBookings = bookingRepository.findByStatus(BookingStatus.SEARCHING_DRIVER).size();
-
-        // Online drivers
-        long onlineDrivers = userRepository.findByRole(Role.DRIVER).stream()
-                .filter(driver -> driver.getIsOnline() != null && driver.getIsOnline())
-                .count();
-
-        stats.put("totalUsers", totalUsers);
-        stats.put("totalDrivers", totalDrivers);
-        stats.put("totalCustomers", totalCustomers);
-        stats.put("totalBookings", totalBookings);
-        stats.put("activeBookings", activeBookings);
-        stats.put("completedBookings", completedBookings);
-        stats.put("pendingBookings", pendingBookings);
-        stats.put("onlineDrivers", onlineDrivers);
-
-        return ResponseEntity.ok(stats);
+        return ResponseEntity.ok(adminReportService.getDashboardStats());
+    }
+
+    // GET CLUSTER MEMBERS (nodes sharing real-time state)
+    @GetMapping("/cluster")
+    public ResponseEntity<Map<String, Object>> getClusterStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("nodeId", clusterTransport.nodeId());
+        status.put("members", clusterTransport.members());
+        return ResponseEntity.ok(status);
+    }
+
+    // GET GEOFENCE STATUS (optionally the fences around a point)
+    @GetMapping("/geofences")
+    public ResponseEntity<Map<String, Object>> getGeofences(
+            @RequestParam(required = false) Double latitude,
+            @RequestParam(required = false) Double longitude) {
+        Map<String, Object> status = new HashMap<>();
+        status.put("activeDrivers", geofenceService.getActiveDrivers());
+        status.put("autoArrivals", geofenceService.getArrivals());
+        status.put("autoCompletions", geofenceService.getCompletions());
+        if (latitude != null && longitude != null) {
+            status.put("fences", geofenceService.fencesNear(latitude, longitude));
+        }
+        return ResponseEntity.ok(status);
+    }
+
+    // GET LOCATION FILTER STATISTICS (accepted / dropped pings)
+    @GetMapping("/location-filter")
+    public ResponseEntity<Map<String, Object>> getLocationFilterStats() {
+        return ResponseEntity.ok(locationFilterService.getStats());
+    }
+
+    // GET SHARED-LOAD PLAN (multi-stop routes for part loads waiting for a driver)
+    @GetMapping("/consolidation")
+    public ResponseEntity<ConsolidationPlan> getConsolidationPlan(
+            @RequestParam(required = false) Integer horizonHours) {
+        return ResponseEntity.ok(consolidationService.plan(horizonHours));
+    }
+
+    // GET BOOKING TIMEOUTS (armed deadlines and expiries so far)
+    @GetMapping("/timeouts")
+    public ResponseEntity<Map<String, Object>> getTimeouts() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("armed", bookingTimeoutService.getArmed());
+        status.put("expired", bookingTimeoutService.getExpired());
+        return ResponseEntity.ok(status);
+    }
+
+    // GET DATABASE POOLS (primary / read replica routing and lag)
+    @GetMapping("/datasources")
+    public ResponseEntity<Map<String, Object>> getDataSources() {
+        ReplicaRoutingDataSource routing = replicaRoutingDataSource.getIfAvailable();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("replicaRouting", routing != null);
+        if (routing != null) {
+            status.putAll(routing.getStats());
+        }
+        status.put("cacheFillsFromPrimary", bookingResponseCache.getReplicaBehind());
+        return ResponseEntity.ok(status);
     }
 
     // ASSIGN DRIVER TO BOOKING
     @PostMapping("/bookings/{bookingId}/assign/{driverId}")
-    public ResponseEntity<Booking> assignDriver(
+    public ResponseEntity<BookingResponse> assignDriver(
             @PathVariable Long bookingId,
             @PathVariable Long driverId) {
         try {
             Booking booking = bookingService.assignDriver(bookingId, driverId);
-            return ResponseEntity.ok(booking);
+            return ResponseEntity.ok(BookingResponse.from(booking));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -105,6 +158,7 @@ public class AdminController {
     public ResponseEntity<Void> deleteUser(@PathVariable Long userId) {
         try {
             userRepository.deleteById(userId);
+            bookingResponseCache.onUserChanged(userId);
             return ResponseEntity.ok().build();
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
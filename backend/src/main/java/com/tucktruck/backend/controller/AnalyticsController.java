@@ -0,0 +1,71 @@
+package com.tucktruck.backend.controller;
+
+import com.tucktruck.backend.dto.AnalyticsRollup;
+import com.tucktruck.backend.service.AnalyticsService;
+import com.tucktruck.backend.service.AnalyticsService.Dimension;
+import com.tucktruck.backend.service.AnalyticsService.Granularity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/analytics")
+@CrossOrigin(origins = "http://localhost:5173")
+@RequiredArgsConstructor
+public class AnalyticsController {
+
+    private static final int DEFAULT_RANGE_DAYS = 30;
+
+    private final AnalyticsService analyticsService;
+
+    // GET TOTALS FOR A RANGE (Admin analytics)
+    @GetMapping("/summary")
+    public ResponseEntity<AnalyticsRollup> getSummary(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(DEFAULT_RANGE_DAYS);
+        return ResponseEntity.ok(analyticsService.total(Dimension.ALL, null, start, end));
+    }
+
+    // GET TOTALS PER DRIVER / VEHICLE TYPE / CITY
+    @GetMapping("/breakdown")
+    public ResponseEntity<List<AnalyticsRollup>> getBreakdown(
+            @RequestParam Dimension dimension,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(DEFAULT_RANGE_DAYS);
+        return ResponseEntity.ok(analyticsService.breakdown(dimension, start, end));
+    }
+
+    // GET HOURLY / DAILY SERIES FOR ONE KEY
+    @GetMapping("/series")
+    public ResponseEntity<List<AnalyticsRollup>> getSeries(
+            @RequestParam(defaultValue = "ALL") Dimension dimension,
+            @RequestParam(required = false) String key,
+            @RequestParam(defaultValue = "DAY") Granularity granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(DEFAULT_RANGE_DAYS);
+        return ResponseEntity.ok(analyticsService.series(dimension, key, granularity, start, end));
+    }
+
+    // GET DRIVER EARNINGS (Driver earnings screen)
+    @GetMapping("/drivers/{driverId}")
+    public ResponseEntity<List<AnalyticsRollup>> getDriverEarnings(
+            @PathVariable Long driverId,
+            @RequestParam(defaultValue = "DAY") Granularity granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(DEFAULT_RANGE_DAYS);
+        return ResponseEntity.ok(analyticsService.series(Dimension.DRIVER, driverId.toString(), granularity,
+                start, end));
+    }
+}
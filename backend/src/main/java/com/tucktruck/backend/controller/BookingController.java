@@ -1,10 +1,22 @@
 package com.tucktruck.backend.controller;
 
+import com.tucktruck.backend.dto.BookingFeedResponse;
+import com.tucktruck.backend.dto.BookingResponse;
+import com.tucktruck.backend.dto.ErrorResponse;
+import com.tucktruck.backend.dto.LocationResponse;
+import com.tucktruck.backend.dto.TripEta;
 import com.tucktruck.backend.entity.*;
+import com.tucktruck.backend.service.BookingFeedService;
+import com.tucktruck.backend.service.BookingResponseCache;
 import com.tucktruck.backend.service.BookingService;
+import com.tucktruck.backend.service.IdempotencyService;
+import com.tucktruck.backend.service.TripEtaService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import java.util.List;
 import java.util.Map;
@@ -16,57 +28,109 @@ import java.util.Map;
 public class BookingController {
 
     private final BookingService bookingService;
+    private final IdempotencyService idempotencyService;
+    private final BookingFeedService bookingFeedService;
+    private final BookingResponseCache bookingResponseCache;
+    private final TripEtaService tripEtaService;
 
     // CREATE BOOKING (Customer)
+    // Retries carrying the same Idempotency-Key get the original booking back
     @PostMapping
-    public ResponseEntity<Booking> createBooking(@RequestBody Booking booking) {
+    public ResponseEntity<?> createBooking(
+            @RequestBody Booking booking,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         try {
-            Booking created = bookingService.createBooking(booking);
-            return ResponseEntity.ok(created);
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().build();
+            IdempotencyService.Result result = idempotencyService.createBooking(idempotencyKey, booking);
+            return ResponseEntity.ok()
+                    .header("Idempotent-Replayed", String.valueOf(result.replayed()))
+                    .body(BookingResponse.from(result.booking()));
+        } catch (IdempotencyService.RequestInProgressException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse(e.getMessage()));
+        } catch (IdempotencyService.KeyReusedException e) {
+            return ResponseEntity.unprocessableEntity().body(new ErrorResponse(e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
         }
     }
 
     // GET CUSTOMER BOOKINGS
     @GetMapping("/customer/{customerId}")
-    public ResponseEntity<List<Booking>> getCustomerBookings(@PathVariable Long customerId) {
-        List<Booking> bookings = bookingService.getCustomerBookings(customerId);
-        return ResponseEntity.ok(bookings);
+    public ResponseEntity<byte[]> getCustomerBookings(
+            @PathVariable Long customerId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        BookingResponseCache.Format format = BookingResponseCache.Format.fromAccept(accept);
+        String etag = bookingResponseCache.customerEtag(customerId, format);
+        if (BookingResponseCache.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        byte[] body = bookingResponseCache.getBody(etag, format, () -> bookingService.getCustomerBookings(customerId));
+        return encodedResponse(etag, format, body);
     }
 
     // GET DRIVER BOOKINGS
     @GetMapping("/driver/{driverId}")
-    public ResponseEntity<List<Booking>> getDriverBookings(@PathVariable Long driverId) {
-        List<Booking> bookings = bookingService.getDriverBookings(driverId);
-        return ResponseEntity.ok(bookings);
+    public ResponseEntity<byte[]> getDriverBookings(
+            @PathVariable Long driverId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        BookingResponseCache.Format format = BookingResponseCache.Format.fromAccept(accept);
+        String etag = bookingResponseCache.driverEtag(driverId, format);
+        if (BookingResponseCache.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        byte[] body = bookingResponseCache.getBody(etag, format, () -> bookingService.getDriverBookings(driverId));
+        return encodedResponse(etag, format, body);
     }
 
     // GET DRIVER ACTIVE BOOKING (Current trip)
     @GetMapping("/driver/{driverId}/active")
-    public ResponseEntity<Booking> getDriverActiveBooking(@PathVariable Long driverId) {
-        Booking booking = bookingService.getDriverActiveBooking(driverId);
-        if (booking == null) {
-            return ResponseEntity.noContent().build();
+    public ResponseEntity<byte[]> getDriverActiveBooking(
+            @PathVariable Long driverId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        BookingResponseCache.Format format = BookingResponseCache.Format.fromAccept(accept);
+        String etag = bookingResponseCache.driverActiveEtag(driverId, format);
+        if (BookingResponseCache.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
         }
-        return ResponseEntity.ok(booking);
+        byte[] body = bookingResponseCache.getBody(etag, format, () -> bookingService.getDriverActiveBooking(driverId));
+        if (body.length == 0) {
+            return ResponseEntity.noContent().eTag(etag).build();
+        }
+        return encodedResponse(etag, format, body);
     }
 
     // GET PENDING BOOKINGS (Waiting for driver assignment)
     @GetMapping("/pending")
-    public ResponseEntity<List<Booking>> getPendingBookings() {
+    public ResponseEntity<List<BookingResponse>> getPendingBookings() {
         List<Booking> bookings = bookingService.getPendingBookings();
-        return ResponseEntity.ok(bookings);
+        return ResponseEntity.ok(bookings.stream().map(BookingResponse::from).toList());
+    }
+
+    // GET PENDING BOOKING CHANGES (Driver feed, delta sync with optional long poll)
+    @GetMapping("/feed")
+    public DeferredResult<BookingFeedResponse> getBookingFeed(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(required = false) String vehicleType,
+            @RequestParam(required = false) Double latitude,
+            @RequestParam(required = false) Double longitude,
+            @RequestParam(required = false) Double radiusKm,
+            @RequestParam(required = false) Long driverId,
+            @RequestParam(defaultValue = "0") long waitMs) {
+        BookingFeedService.FeedFilter filter = new BookingFeedService.FeedFilter(vehicleType, latitude, longitude,
+                radiusKm, driverId);
+        return bookingFeedService.waitForChanges(since, filter, waitMs);
     }
 
     // ASSIGN DRIVER (Admin action)
     @PostMapping("/{bookingId}/assign/{driverId}")
-    public ResponseEntity<Booking> assignDriver(
+    public ResponseEntity<BookingResponse> assignDriver(
             @PathVariable Long bookingId,
             @PathVariable Long driverId) {
         try {
             Booking booking = bookingService.assignDriver(bookingId, driverId);
-            return ResponseEntity.ok(booking);
+            return ResponseEntity.ok(BookingResponse.from(booking));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -74,13 +138,13 @@ public class BookingController {
 
     // UPDATE BOOKING STATUS (Driver actions)
     @PatchMapping("/{bookingId}/status")
-    public ResponseEntity<Booking> updateStatus(
+    public ResponseEntity<BookingResponse> updateStatus(
             @PathVariable Long bookingId,
             @RequestBody Map<String, String> statusUpdate) {
         try {
             BookingStatus newStatus = BookingStatus.valueOf(statusUpdate.get("status"));
             Booking booking = bookingService.updateBookingStatus(bookingId, newStatus);
-            return ResponseEntity.ok(booking);
+            return ResponseEntity.ok(BookingResponse.from(booking));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -88,7 +152,7 @@ public class BookingController {
 
     // UPDATE DRIVER LOCATION (Real-time tracking)
     @PostMapping("/{bookingId}/location")
-    public ResponseEntity<Location> updateLocation(
+    public ResponseEntity<LocationResponse> updateLocation(
             @PathVariable Long bookingId,
             @RequestBody Map<String, Object> locationData) {
         try {
@@ -97,36 +161,68 @@ public class BookingController {
             Double longitude = Double.valueOf(locationData.get("longitude").toString());
 
             Location location = bookingService.updateDriverLocation(bookingId, driverId, latitude, longitude);
-            return ResponseEntity.ok(location);
+            if (location == null) {
+                // Filtered out (duplicate or outlier), nothing stored
+                return ResponseEntity.noContent().build();
+            }
+            return ResponseEntity.ok(LocationResponse.from(location));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    // GET TRIP ETA AND PROGRESS (Customer tracking)
+    @GetMapping("/{bookingId}/eta")
+    public ResponseEntity<TripEta> getEta(@PathVariable Long bookingId) {
+        try {
+            return ResponseEntity.ok(tripEtaService.getEta(bookingId));
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     // GET ALL BOOKINGS (Admin dashboard)
     @GetMapping
-    public ResponseEntity<List<Booking>> getAllBookings() {
+    public ResponseEntity<List<BookingResponse>> getAllBookings() {
         List<Booking> bookings = bookingService.getAllBookings();
-        return ResponseEntity.ok(bookings);
+        return ResponseEntity.ok(bookings.stream().map(BookingResponse::from).toList());
     }
 
     // GET BOOKING BY ID
     @GetMapping("/{id}")
-    public ResponseEntity<Booking> getBookingById(@PathVariable Long id) {
+    public ResponseEntity<byte[]> getBookingById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        BookingResponseCache.Format format = BookingResponseCache.Format.fromAccept(accept);
+        String etag = bookingResponseCache.bookingEtag(id, format);
+        if (BookingResponseCache.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
         try {
-            Booking booking = bookingService.getBookingById(id);
-            return ResponseEntity.ok(booking);
+            byte[] body = bookingResponseCache.getBody(etag, format, () -> bookingService.getBookingById(id));
+            return encodedResponse(etag, format, body);
         } catch (Exception e) {
             return ResponseEntity.notFound().build();
         }
     }
 
+    // Pre-serialized body with its ETag; the encoding depends on Accept
+    private static ResponseEntity<byte[]> encodedResponse(String etag, BookingResponseCache.Format format,
+            byte[] body) {
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .contentType(format.mediaType())
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(body);
+    }
+
     // CANCEL BOOKING
     @PostMapping("/{bookingId}/cancel")
-    public ResponseEntity<Booking> cancelBooking(@PathVariable Long bookingId) {
+    public ResponseEntity<BookingResponse> cancelBooking(@PathVariable Long bookingId) {
         try {
             Booking booking = bookingService.cancelBooking(bookingId);
-            return ResponseEntity.ok(booking);
+            return ResponseEntity.ok(BookingResponse.from(booking));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
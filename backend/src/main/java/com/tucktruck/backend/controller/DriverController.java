@@ -1,7 +1,12 @@
 package com.tucktruck.backend.controller;
 
+import com.tucktruck.backend.datasource.ReplicaRoutingDataSource;
+import com.tucktruck.backend.dto.UserResponse;
 import com.tucktruck.backend.entity.User;
 import com.tucktruck.backend.repository.UserRepository;
+import com.tucktruck.backend.service.BookingResponseCache;
+import com.tucktruck.backend.service.DriverPresenceService;
+import com.tucktruck.backend.service.LocationFilterService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -16,13 +21,16 @@ import java.util.Map;
 public class DriverController {
 
     private final UserRepository userRepository;
+    private final DriverPresenceService driverPresenceService;
+    private final BookingResponseCache bookingResponseCache;
+    private final LocationFilterService locationFilterService;
 
     // GET AVAILABLE DRIVERS
     @GetMapping("/available")
-    public ResponseEntity<List<User>> getAvailableDrivers() {
+    public ResponseEntity<List<UserResponse>> getAvailableDrivers() {
         try {
             List<User> drivers = userRepository.findByRoleAndIsOnline(com.tucktruck.backend.entity.Role.DRIVER, true);
-            return ResponseEntity.ok(drivers);
+            return ResponseEntity.ok(drivers.stream().map(UserResponse::from).toList());
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -30,30 +38,55 @@ public class DriverController {
 
     // UPDATE DRIVER STATUS (Online/Offline)
     @PatchMapping("/{driverId}/status")
-    public ResponseEntity<User> updateDriverStatus(
+    public ResponseEntity<UserResponse> updateDriverStatus(
             @PathVariable Long driverId,
             @RequestBody Map<String, Boolean> statusUpdate) {
         try {
-            User driver = userRepository.findById(driverId)
+            // Read-modify-write: read from the primary so a lagging replica cannot undo a recent change
+            User driver = ReplicaRoutingDataSource.onPrimary(() -> userRepository.findById(driverId))
                     .orElseThrow(() -> new RuntimeException("Driver not found"));
 
             Boolean isOnline = statusUpdate.get("isOnline");
             driver.setIsOnline(isOnline);
 
             User updated = userRepository.save(driver);
-            return ResponseEntity.ok(updated);
+            if (!Boolean.TRUE.equals(isOnline)) {
+                driverPresenceService.markOffline(driverId);
+                locationFilterService.reset(driverId);
+            }
+            return ResponseEntity.ok(UserResponse.from(updated));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    // UPDATE DRIVER LOCATION (Idle drivers, feeds supply per zone)
+    @PostMapping("/{driverId}/location")
+    public ResponseEntity<Void> updateDriverLocation(
+            @PathVariable Long driverId,
+            @RequestBody Map<String, Double> locationData) {
+        LocationFilterService.Fix fix = locationFilterService.filter(driverId, locationData.get("latitude"),
+                locationData.get("longitude"), System.currentTimeMillis());
+        if (fix.decision() == LocationFilterService.Decision.INVALID) {
+            return ResponseEntity.badRequest().build();
+        }
+        // Idle pings are not stored, so the track is kept straight away
+        locationFilterService.accept(driverId, fix);
+        if (!fix.live()) {
+            // Teleport jump, ignored
+            return ResponseEntity.noContent().build();
+        }
+        driverPresenceService.recordLocation(driverId, null, fix.latitude(), fix.longitude());
+        return ResponseEntity.ok().build();
+    }
+
     // GET DRIVER PROFILE
     @GetMapping("/{driverId}")
-    public ResponseEntity<User> getDriverProfile(@PathVariable Long driverId) {
+    public ResponseEntity<UserResponse> getDriverProfile(@PathVariable Long driverId) {
         try {
             User driver = userRepository.findById(driverId)
                     .orElseThrow(() -> new RuntimeException("Driver not found"));
-            return ResponseEntity.ok(driver);
+            return ResponseEntity.ok(UserResponse.from(driver));
         } catch (Exception e) {
             return ResponseEntity.notFound().build();
         }
@@ -61,11 +94,12 @@ public class DriverController {
 
     // UPDATE DRIVER PROFILE
     @PutMapping("/{driverId}")
-    public ResponseEntity<User> updateDriverProfile(
+    public ResponseEntity<UserResponse> updateDriverProfile(
             @PathVariable Long driverId,
             @RequestBody User updatedDriver) {
         try {
-            User driver = userRepository.findById(driverId)
+            // Read-modify-write: read from the primary so a lagging replica cannot undo a recent change
+            User driver = ReplicaRoutingDataSource.onPrimary(() -> userRepository.findById(driverId))
                     .orElseThrow(() -> new RuntimeException("Driver not found"));
 
             // Update fields
@@ -81,7 +115,8 @@ public class DriverController {
                 driver.setLicenseNumber(updatedDriver.getLicenseNumber());
 
             User saved = userRepository.save(driver);
-            return ResponseEntity.ok(saved);
+            bookingResponseCache.onUserChanged(driverId);
+            return ResponseEntity.ok(UserResponse.from(saved));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -0,0 +1,87 @@
+package com.tucktruck.backend.controller;
+
+import com.tucktruck.backend.dto.DriverEarnings;
+import com.tucktruck.backend.dto.ErrorResponse;
+import com.tucktruck.backend.dto.LedgerEntryResponse;
+import com.tucktruck.backend.dto.SettlementBatchResponse;
+import com.tucktruck.backend.service.LedgerService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/ledger")
+@CrossOrigin(origins = "http://localhost:5173")
+@RequiredArgsConstructor
+public class LedgerController {
+
+    private static final int DEFAULT_RANGE_DAYS = 30;
+
+    private final LedgerService ledgerService;
+
+    // GET DRIVER EARNINGS SUMMARY (Driver earnings screen)
+    @GetMapping("/drivers/{driverId}/earnings")
+    public ResponseEntity<DriverEarnings> getEarnings(
+            @PathVariable Long driverId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(DEFAULT_RANGE_DAYS);
+        return ResponseEntity.ok(ledgerService.getEarnings(driverId, start, end));
+    }
+
+    // GET DRIVER JOURNAL ENTRIES
+    @GetMapping("/drivers/{driverId}/entries")
+    public ResponseEntity<List<LedgerEntryResponse>> getEntries(
+            @PathVariable Long driverId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(DEFAULT_RANGE_DAYS);
+        return ResponseEntity.ok(ledgerService.getEntries(driverId, start, end).stream()
+                .map(LedgerEntryResponse::from).toList());
+    }
+
+    // GET UNSETTLED BALANCE PER DRIVER (Admin payouts)
+    @GetMapping("/balances")
+    public ResponseEntity<Map<Long, Double>> getBalances() {
+        return ResponseEntity.ok(ledgerService.getBalances());
+    }
+
+    // GET SETTLEMENT BATCHES
+    @GetMapping("/settlements")
+    public ResponseEntity<List<SettlementBatchResponse>> getSettlements(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_RANGE_DAYS);
+        return ResponseEntity.ok(ledgerService.getBatches(start, end).stream()
+                .map(SettlementBatchResponse::from).toList());
+    }
+
+    // GET PAYOUT LINES OF ONE BATCH
+    @GetMapping("/settlements/{batchId}/entries")
+    public ResponseEntity<List<LedgerEntryResponse>> getSettlementEntries(@PathVariable Long batchId) {
+        return ResponseEntity.ok(ledgerService.getBatchEntries(batchId).stream()
+                .map(LedgerEntryResponse::from).toList());
+    }
+
+    // SETTLE A PAST DAY NOW (defaults to yesterday; normally done by the nightly job)
+    @PostMapping("/settlements")
+    public ResponseEntity<?> settle(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        try {
+            LocalDate businessDate = date != null ? date : LocalDate.now().minusDays(1);
+            return ResponseEntity.ok(SettlementBatchResponse.from(ledgerService.settle(businessDate)));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse(e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.tucktruck.backend.controller;
+
+import com.tucktruck.backend.dto.ErrorResponse;
+import com.tucktruck.backend.dto.PriceQuote;
+import com.tucktruck.backend.dto.RouteEstimate;
+import com.tucktruck.backend.dto.ZoneSurge;
+import com.tucktruck.backend.service.PricingService;
+import com.tucktruck.backend.service.RoutingService;
+import com.tucktruck.backend.service.SurgePricingService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/pricing")
+@CrossOrigin(origins = "http://localhost:5173")
+@RequiredArgsConstructor
+public class PricingController {
+
+    private final PricingService pricingService;
+    private final SurgePricingService surgePricingService;
+    private final RoutingService routingService;
+
+    // GET PRICE QUOTE (Customer, before booking; distance from the road graph when not given)
+    @GetMapping("/quote")
+    public ResponseEntity<?> getQuote(
+            @RequestParam(required = false) Double distance,
+            @RequestParam String vehicleType,
+            @RequestParam(required = false) Double pickupLatitude,
+            @RequestParam(required = false) Double pickupLongitude,
+            @RequestParam(required = false) String pickupLocation,
+            @RequestParam(required = false) Double dropLatitude,
+            @RequestParam(required = false) Double dropLongitude,
+            @RequestParam(required = false) String dropLocation) {
+        if (distance == null) {
+            RouteEstimate route = routingService.estimate(pickupLatitude, pickupLongitude, pickupLocation,
+                    dropLatitude, dropLongitude, dropLocation);
+            if (route == null) {
+                return ResponseEntity.badRequest().body(new ErrorResponse("No route between these locations"));
+            }
+            distance = route.getDistanceKm();
+        }
+        return ResponseEntity.ok(pricingService.quote(distance, vehicleType, pickupLatitude, pickupLongitude));
+    }
+
+    // GET SURGE ZONES (Drivers move towards hot zones)
+    @GetMapping("/zones")
+    public ResponseEntity<List<ZoneSurge>> getZones() {
+        return ResponseEntity.ok(surgePricingService.getZones());
+    }
+}
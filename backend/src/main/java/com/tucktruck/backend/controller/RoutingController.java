@@ -0,0 +1,42 @@
+package com.tucktruck.backend.controller;
+
+import com.tucktruck.backend.dto.ErrorResponse;
+import com.tucktruck.backend.dto.RouteEstimate;
+import com.tucktruck.backend.service.RoutingService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/routing")
+@CrossOrigin(origins = "http://localhost:5173")
+@RequiredArgsConstructor
+public class RoutingController {
+
+    private final RoutingService routingService;
+
+    // GET ROAD DISTANCE AND ETA (Customer, before booking; by coordinates or addresses)
+    @GetMapping("/estimate")
+    public ResponseEntity<?> getEstimate(
+            @RequestParam(required = false) Double pickupLatitude,
+            @RequestParam(required = false) Double pickupLongitude,
+            @RequestParam(required = false) String pickupLocation,
+            @RequestParam(required = false) Double dropLatitude,
+            @RequestParam(required = false) Double dropLongitude,
+            @RequestParam(required = false) String dropLocation) {
+        RouteEstimate estimate = routingService.estimate(pickupLatitude, pickupLongitude, pickupLocation,
+                dropLatitude, dropLongitude, dropLocation);
+        if (estimate == null) {
+            return ResponseEntity.badRequest().body(new ErrorResponse("No route between these locations"));
+        }
+        return ResponseEntity.ok(estimate);
+    }
+
+    // GET CITIES AND TOWNS ON THE ROAD GRAPH
+    @GetMapping("/nodes")
+    public ResponseEntity<List<String>> getNodes() {
+        return ResponseEntity.ok(routingService.getNodes());
+    }
+}
@@ -0,0 +1,89 @@
+package com.tucktruck.backend.datasource;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+
+// Decides whether read-only transactions may use the replica.
+// Every probe stamps the current time into a heartbeat row on the primary and reads the
+// row back from the replica; the difference is how far replication is behind (never less
+// than the probe interval once the replica misses one stamp). Above maxLagMs the replica
+// is bypassed until it is back under half of it. maxLagMs <= 0 only checks that the
+// replica answers.
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private static final String HEARTBEAT_DDL =
+            "CREATE TABLE IF NOT EXISTS replica_heartbeat (id INT NOT NULL PRIMARY KEY, beat_at BIGINT NOT NULL)";
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final ReplicaRoutingDataSource routing;
+    private final long maxLagMs;
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, ReplicaRoutingDataSource routing,
+            long maxLagMs) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.routing = routing;
+        this.maxLagMs = maxLagMs;
+    }
+
+    @PostConstruct
+    void init() {
+        if (maxLagMs > 0) {
+            primary.execute(HEARTBEAT_DDL);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${tucktruck.datasource.replica.probe-interval-ms:1000}")
+    public void probe() {
+        if (maxLagMs <= 0) {
+            routing.updateReplicaState(replicaAnswers(), 0);
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        try {
+            if (primary.update("UPDATE replica_heartbeat SET beat_at = ? WHERE id = 1", now) == 0) {
+                primary.update("INSERT INTO replica_heartbeat (id, beat_at) VALUES (1, ?)", now);
+            }
+        } catch (DataAccessException e) {
+            // Nothing to compare against; writes are failing anyway
+            log.warn("Could not write replica heartbeat: {}", e.getMessage());
+            return;
+        }
+
+        Long beat;
+        try {
+            beat = replica.query("SELECT beat_at FROM replica_heartbeat WHERE id = 1",
+                    rs -> rs.next() ? rs.getLong(1) : null);
+        } catch (DataAccessException e) {
+            log.debug("Replica probe failed: {}", e.getMessage());
+            routing.updateReplicaState(false, -1);
+            return;
+        }
+        if (beat == null) {
+            // Heartbeat row not replicated yet
+            routing.updateReplicaState(false, -1);
+            return;
+        }
+        long lag = Math.max(0, now - beat);
+        long limit = routing.isReplicaUsable() ? maxLagMs : maxLagMs / 2;
+        routing.updateReplicaState(lag <= limit, lag);
+    }
+
+    private boolean replicaAnswers() {
+        try {
+            replica.queryForObject("SELECT 1", Integer.class);
+            return true;
+        } catch (DataAccessException e) {
+            log.debug("Replica probe failed: {}", e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.tucktruck.backend.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Sends read-only transactions (@Transactional(readOnly = true) service methods and the
+// default read transactions of Spring Data repositories) to the replica pool, everything
+// else to the primary. Must sit behind a LazyConnectionDataSourceProxy so the connection
+// is only fetched once the transaction's read-only flag is set.
+// Reads fall back to the primary while the replica is lagging or unreachable
+// (ReplicaLagMonitor), and when a replica connection cannot be opened.
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    // Reads that must see the latest committed state on this thread
+    private static final ThreadLocal<Integer> PRIMARY_PINS = ThreadLocal.withInitial(() -> 0);
+
+    private final HikariDataSource primary;
+    private final HikariDataSource replica;
+
+    private final LongAdder[] connections = { new LongAdder(), new LongAdder() };
+    private final LongAdder fallbacks = new LongAdder();
+    private final LongAdder failovers = new LongAdder();
+
+    // Replica state from the last probe; unusable until the first one succeeds
+    private volatile boolean replicaUsable;
+    private volatile long replicaLagMs = -1;
+    private volatile long lastProbeAt;
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, HikariDataSource replica) {
+        this.primary = primary;
+        this.replica = replica;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    // Run reads on the primary whatever their transaction says, e.g. to fill a cache keyed by a
+    // version that the replica may not have caught up with yet. Call outside a transaction.
+    public static <T> T onPrimary(Supplier<T> work) {
+        PRIMARY_PINS.set(PRIMARY_PINS.get() + 1);
+        try {
+            return work.get();
+        } finally {
+            int pins = PRIMARY_PINS.get() - 1;
+            if (pins == 0) {
+                PRIMARY_PINS.remove();
+            } else {
+                PRIMARY_PINS.set(pins);
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || PRIMARY_PINS.get() > 0) {
+            return Route.PRIMARY;
+        }
+        if (!replicaUsable) {
+            fallbacks.increment();
+            return Route.PRIMARY;
+        }
+        return Route.REPLICA;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (determineCurrentLookupKey() == Route.PRIMARY) {
+            connections[Route.PRIMARY.ordinal()].increment();
+            return primary.getConnection();
+        }
+        try {
+            Connection connection = replica.getConnection();
+            connections[Route.REPLICA.ordinal()].increment();
+            return connection;
+        } catch (SQLException e) {
+            // Replica went away between probes; keep serving reads from the primary
+            log.warn("Replica connection failed, reading from the primary: {}", e.getMessage());
+            replicaUsable = false;
+            failovers.increment();
+            connections[Route.PRIMARY.ordinal()].increment();
+            return primary.getConnection();
+        }
+    }
+
+    // Result of a ReplicaLagMonitor probe (lagMs -1: replica unreachable)
+    void updateReplicaState(boolean usable, long lagMs) {
+        if (usable != replicaUsable) {
+            log.info("Replica {} (lag {} ms)", usable ? "in use" : "bypassed", lagMs);
+        }
+        replicaUsable = usable;
+        replicaLagMs = lagMs;
+        lastProbeAt = System.currentTimeMillis();
+    }
+
+    boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    // Per pool: connections handed out and the Hikari pool state; plus replica health
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("primary", poolStats(primary, Route.PRIMARY));
+        stats.put("replica", poolStats(replica, Route.REPLICA));
+        stats.put("replicaUsable", replicaUsable);
+        stats.put("replicaLagMs", replicaLagMs);
+        stats.put("lastProbeAt", lastProbeAt);
+        stats.put("readFallbacks", fallbacks.sum());
+        stats.put("replicaFailovers", failovers.sum());
+        return stats;
+    }
+
+    private Map<String, Object> poolStats(HikariDataSource pool, Route route) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pool", pool.getPoolName());
+        stats.put("connectionsHandedOut", connections[route.ordinal()].sum());
+        HikariPoolMXBean bean = pool.getHikariPoolMXBean();
+        if (bean != null) {
+            stats.put("active", bean.getActiveConnections());
+            stats.put("idle", bean.getIdleConnections());
+            stats.put("total", bean.getTotalConnections());
+            stats.put("waiting", bean.getThreadsAwaitingConnection());
+        }
+        stats.put("maximumPoolSize", pool.getMaximumPoolSize());
+        return stats;
+    }
+}
@@ -0,0 +1,17 @@
+package com.tucktruck.backend.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsRollup {
+    private String key; // driver id, vehicle type, city or "all"
+    private LocalDateTime bucketStart; // null for range totals
+    private long completedBookings;
+    private double revenue;
+    private double distanceKm;
+}
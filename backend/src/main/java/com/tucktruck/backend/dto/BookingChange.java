@@ -0,0 +1,55 @@
+package com.tucktruck.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.tucktruck.backend.entity.BookingStatus;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDateTime;
+
+// One entry of the booking change feed. REMOVE and STATUS entries only carry
+// seq, bookingId, op and status; null fields are left out of the JSON.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookingChange {
+
+    public enum Op {
+        UPSERT, // booking is (still) waiting for a driver
+        REMOVE, // booking left the pending queue
+        STATUS // any other status change
+    }
+
+    private Long seq;
+    private Long bookingId;
+    private Op op;
+    private BookingStatus status;
+
+    // Only filled for UPSERT
+    private String vehicleType;
+    private String pickupLocation;
+    private String dropLocation;
+    private Double pickupLatitude;
+    private Double pickupLongitude;
+    private Double dropLatitude;
+    private Double dropLongitude;
+    private Double distance;
+    private Double estimatedPrice;
+    private LocalDateTime createdAt;
+
+    // Used for filtering only
+    @JsonIgnore
+    private String filterVehicleType;
+    @JsonIgnore
+    private Double filterLatitude;
+    @JsonIgnore
+    private Double filterLongitude;
+    @JsonIgnore
+    private Long driverId;
+
+    // Booking's optimistic-lock version after this change; tells whether a replica has it
+    @JsonIgnore
+    private Long rowVersion;
+}
@@ -0,0 +1,15 @@
+package com.tucktruck.backend.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingFeedResponse {
+    private long lastSeq; // pass as "since" on the next call
+    private boolean reset; // true when changes is a full snapshot of the pending queue
+    private List<BookingChange> changes;
+}
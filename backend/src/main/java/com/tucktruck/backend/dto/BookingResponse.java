@@ -0,0 +1,109 @@
+package com.tucktruck.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.tucktruck.backend.entity.Booking;
+import com.tucktruck.backend.entity.BookingStatus;
+import com.tucktruck.backend.entity.User;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Flat booking view for API responses: customer and driver are reduced to the
+// few fields the screens show, never the whole User (and never its password).
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookingResponse {
+    private Long id;
+    private BookingStatus status;
+
+    private Long customerId;
+    private String customerName;
+    private String customerPhone;
+
+    private Long driverId;
+    private String driverName;
+    private String driverPhone;
+    private String driverVehicleNumber;
+    private Long previousDriverId;
+
+    private String pickupLocation;
+    private Double pickupLatitude;
+    private Double pickupLongitude;
+    private String dropLocation;
+    private Double dropLatitude;
+    private Double dropLongitude;
+
+    private String vehicleType;
+    private Double loadWeightKg;
+    private Double distance;
+    private Double estimatedPrice;
+    private Double surgeMultiplier;
+    private Double finalPrice;
+    private Boolean isPaid;
+    private String paymentMethod;
+    private Boolean paymentOverdue;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime scheduledAt;
+    private LocalDateTime driverAssignedAt;
+    private LocalDateTime tripStartedAt;
+    private LocalDateTime completedAt;
+
+    private String customerNotes;
+    private String driverNotes;
+
+    public static BookingResponse from(Booking booking) {
+        if (booking == null) {
+            return null;
+        }
+        BookingResponse response = new BookingResponse();
+        response.setId(booking.getId());
+        response.setStatus(booking.getStatus());
+
+        User customer = booking.getCustomer();
+        if (customer != null) {
+            response.setCustomerId(customer.getId());
+            response.setCustomerName(customer.getName());
+        }
+        response.setCustomerPhone(booking.getCustomerPhone() != null || customer == null
+                ? booking.getCustomerPhone() : customer.getPhone());
+
+        User driver = booking.getDriver();
+        if (driver != null) {
+            response.setDriverId(driver.getId());
+            response.setDriverName(driver.getName());
+            response.setDriverPhone(driver.getPhone());
+            response.setDriverVehicleNumber(driver.getVehicleNumber());
+        }
+        response.setPreviousDriverId(booking.getPreviousDriverId());
+
+        response.setPickupLocation(booking.getPickupLocation());
+        response.setPickupLatitude(booking.getPickupLatitude());
+        response.setPickupLongitude(booking.getPickupLongitude());
+        response.setDropLocation(booking.getDropLocation());
+        response.setDropLatitude(booking.getDropLatitude());
+        response.setDropLongitude(booking.getDropLongitude());
+
+        response.setVehicleType(booking.getVehicleType());
+        response.setLoadWeightKg(booking.getLoadWeightKg());
+        response.setDistance(booking.getDistance());
+        response.setEstimatedPrice(booking.getEstimatedPrice());
+        response.setSurgeMultiplier(booking.getSurgeMultiplier());
+        response.setFinalPrice(booking.getFinalPrice());
+        response.setIsPaid(booking.getIsPaid());
+        response.setPaymentMethod(booking.getPaymentMethod());
+        response.setPaymentOverdue(booking.getPaymentOverdue());
+
+        response.setCreatedAt(booking.getCreatedAt());
+        response.setScheduledAt(booking.getScheduledAt());
+        response.setDriverAssignedAt(booking.getDriverAssignedAt());
+        response.setTripStartedAt(booking.getTripStartedAt());
+        response.setCompletedAt(booking.getCompletedAt());
+
+        response.setCustomerNotes(booking.getCustomerNotes());
+        response.setDriverNotes(booking.getDriverNotes());
+        return response;
+    }
+}
@@ -0,0 +1,35 @@
+package com.tucktruck.backend.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConsolidatedRoute {
+    private String vehicleType;
+    private String corridor; // e.g. trichy -> madurai
+    private List<Long> bookingIds;
+    private List<Stop> stops; // in driving order
+    private Double distanceKm;
+    private Double separateDistanceKm; // the same loads as dedicated trips
+    private Double routeCost;
+    private Double separateCost;
+    private Double peakLoadKg;
+    private Double utilisation; // peak load / vehicle capacity
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Stop {
+        private Long bookingId;
+        private String type; // PICKUP or DROP
+        private String location;
+        private Double latitude;
+        private Double longitude;
+        private Double loadAfterKg;
+    }
+}
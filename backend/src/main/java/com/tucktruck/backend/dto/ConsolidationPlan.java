@@ -0,0 +1,21 @@
+package com.tucktruck.backend.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConsolidationPlan {
+    private Integer candidateBookings; // part loads considered
+    private Integer consolidatedBookings; // placed on a shared route
+    private List<ConsolidatedRoute> routes; // routes with two or more loads
+    private Double distanceKm;
+    private Double separateDistanceKm;
+    private Double routeCost;
+    private Double separateCost;
+    private Long planningMillis;
+}
@@ -0,0 +1,22 @@
+package com.tucktruck.backend.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DriverEarnings {
+    private Long driverId;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private long trips; // completed trips in the range
+    private double grossFare;
+    private double commission;
+    private double earnings; // grossFare minus commission
+    private double cashCollected; // fares the driver took in cash
+    private double settled; // paid out by settlements in the range (negative: collected from the driver)
+    private double balance; // current unsettled balance, positive when owed to the driver
+}
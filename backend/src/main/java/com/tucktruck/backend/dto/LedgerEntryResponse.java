@@ -0,0 +1,42 @@
+package com.tucktruck.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.tucktruck.backend.entity.LedgerEntry;
+import com.tucktruck.backend.entity.LedgerEntryType;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Journal line as returned by the API
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LedgerEntryResponse {
+    private Long id;
+    private Long driverId;
+    private Long bookingId;
+    private LedgerEntryType entryType;
+    private Double amount;
+    private Double grossFare;
+    private Double commission;
+    private Long settlementBatchId;
+    private LocalDateTime createdAt;
+
+    public static LedgerEntryResponse from(LedgerEntry entry) {
+        if (entry == null) {
+            return null;
+        }
+        LedgerEntryResponse response = new LedgerEntryResponse();
+        response.setId(entry.getId());
+        response.setDriverId(entry.getDriverId());
+        response.setBookingId(entry.getBookingId());
+        response.setEntryType(entry.getEntryType());
+        response.setAmount(entry.getAmount());
+        response.setGrossFare(entry.getGrossFare());
+        response.setCommission(entry.getCommission());
+        response.setSettlementBatchId(entry.getSettlementBatchId());
+        response.setCreatedAt(entry.getCreatedAt());
+        return response;
+    }
+}
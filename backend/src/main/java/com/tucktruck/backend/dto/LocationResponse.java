@@ -0,0 +1,37 @@
+package com.tucktruck.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.tucktruck.backend.entity.Location;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Stored location ping; booking and driver by id only
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LocationResponse {
+    private Long id;
+    private Long bookingId;
+    private Long driverId;
+    private Double latitude;
+    private Double longitude;
+    private LocalDateTime timestamp;
+    private String address;
+
+    public static LocationResponse from(Location location) {
+        if (location == null) {
+            return null;
+        }
+        LocationResponse response = new LocationResponse();
+        response.setId(location.getId());
+        response.setBookingId(location.getBooking() != null ? location.getBooking().getId() : null);
+        response.setDriverId(location.getDriver() != null ? location.getDriver().getId() : null);
+        response.setLatitude(location.getLatitude());
+        response.setLongitude(location.getLongitude());
+        response.setTimestamp(location.getTimestamp());
+        response.setAddress(location.getAddress());
+        return response;
+    }
+}
@@ -0,0 +1,16 @@
+package com.tucktruck.backend.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceQuote {
+    private String vehicleType;
+    private Double distance; // in km
+    private Double baseFare;
+    private Double surgeMultiplier;
+    private Double estimatedPrice;
+}
@@ -0,0 +1,18 @@
+package com.tucktruck.backend.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RouteEstimate {
+    private String pickupNode; // graph node the pickup snapped to
+    private String dropNode;
+    private Double distanceKm; // road distance, pickup to drop
+    private Double etaMinutes; // loaded-truck driving time
+    private String source; // GRAPH (along highway links) or DIRECT (short or same-city trips)
+    private List<String> via; // nodes along the route, empty for DIRECT
+}
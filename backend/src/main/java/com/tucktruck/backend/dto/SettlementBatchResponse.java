@@ -0,0 +1,40 @@
+package com.tucktruck.backend.dto;
+
+import com.tucktruck.backend.entity.SettlementBatch;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Settlement run as returned by the API
+@Data
+@NoArgsConstructor
+public class SettlementBatchResponse {
+    private Long id;
+    private LocalDate businessDate;
+    private Long fromEntryId;
+    private Long toEntryId;
+    private Integer entryCount;
+    private Integer driverCount;
+    private Double totalPayout;
+    private Double totalCollected;
+    private LocalDateTime createdAt;
+
+    public static SettlementBatchResponse from(SettlementBatch batch) {
+        if (batch == null) {
+            return null;
+        }
+        SettlementBatchResponse response = new SettlementBatchResponse();
+        response.setId(batch.getId());
+        response.setBusinessDate(batch.getBusinessDate());
+        response.setFromEntryId(batch.getFromEntryId());
+        response.setToEntryId(batch.getToEntryId());
+        response.setEntryCount(batch.getEntryCount());
+        response.setDriverCount(batch.getDriverCount());
+        response.setTotalPayout(batch.getTotalPayout());
+        response.setTotalCollected(batch.getTotalCollected());
+        response.setCreatedAt(batch.getCreatedAt());
+        return response;
+    }
+}
@@ -0,0 +1,23 @@
+package com.tucktruck.backend.dto;
+
+import com.tucktruck.backend.entity.BookingStatus;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripEta {
+    private Long bookingId;
+    private BookingStatus status;
+    private String target; // PICKUP or DROP
+    private Double driverLatitude;
+    private Double driverLongitude;
+    private Double remainingKm; // to the current target
+    private Double speedKmh; // smoothed
+    private Double etaMinutes; // to the current target
+    private Double etaDropMinutes; // to the drop, via pickup if not picked up yet
+    private Double progress; // 0..1 of the pickup -> drop leg
+    private Long updatedAt; // epoch millis of the last ping
+}
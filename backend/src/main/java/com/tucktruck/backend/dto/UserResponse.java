@@ -0,0 +1,44 @@
+package com.tucktruck.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.tucktruck.backend.entity.Role;
+import com.tucktruck.backend.entity.User;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// User as returned by the API, without the password hash
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserResponse {
+    private Long id;
+    private String email;
+    private String name;
+    private String phone;
+    private String address;
+    private Role role;
+
+    // Driver only
+    private String vehicleType;
+    private String vehicleNumber;
+    private String licenseNumber;
+    private Boolean isOnline;
+
+    public static UserResponse from(User user) {
+        if (user == null) {
+            return null;
+        }
+        UserResponse response = new UserResponse();
+        response.setId(user.getId());
+        response.setEmail(user.getEmail());
+        response.setName(user.getName());
+        response.setPhone(user.getPhone());
+        response.setAddress(user.getAddress());
+        response.setRole(user.getRole());
+        response.setVehicleType(user.getVehicleType());
+        response.setVehicleNumber(user.getVehicleNumber());
+        response.setLicenseNumber(user.getLicenseNumber());
+        response.setIsOnline(user.getIsOnline());
+        return response;
+    }
+}
@@ -0,0 +1,18 @@
+package com.tucktruck.backend.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ZoneSurge {
+    private Long zoneId;
+    private Double centerLatitude;
+    private Double centerLongitude;
+    private Integer pendingBookings; // currently SEARCHING_DRIVER
+    private Long recentBookings; // new bookings inside the window
+    private Double activeDrivers; // average drivers seen per slot inside the window
+    private Double surgeMultiplier;
+}
@@ -27,6 +27,9 @@ public class Booking {
     @JoinColumn(name = "driver_id")
     private User driver;
 
+    // Driver taken off the booking after a pickup no-show
+    private Long previousDriverId;
+
     // Pickup location
     @Column(nullable = false)
     private String pickupLocation;
@@ -44,11 +47,13 @@ public class Booking {
     // Vehicle details
     @Column(nullable = false)
     private String vehicleType; // mini truck, pickup, tempo
+    private Double loadWeightKg; // part load; null means the whole vehicle
 
     // Pricing
     private Double estimatedPrice;
     private Double finalPrice;
     private Double distance; // in km
+    private Double surgeMultiplier; // applied to estimatedPrice at booking time
 
     // Booking lifecycle
     @Enumerated(EnumType.STRING)
@@ -59,6 +64,7 @@ public class Booking {
     @Column(nullable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
 
+    private LocalDateTime scheduledAt; // requested pickup time; null means as soon as possible
     private LocalDateTime driverAssignedAt;
     private LocalDateTime tripStartedAt;
     private LocalDateTime completedAt;
@@ -70,7 +76,14 @@ public class Booking {
     // Payment
     private Boolean isPaid = false;
     private String paymentMethod;
+    private Boolean paymentOverdue = false; // still COMPLETED after the payment window; admin follows up
 
     // Contact
     private String customerPhone;
+
+    // Optimistic lock: of two concurrent writers (driver, admin, timeout, geofence) the later
+    // commit fails instead of silently overwriting the other's change
+    @Version
+    @Column(nullable = false)
+    private long version;
 }
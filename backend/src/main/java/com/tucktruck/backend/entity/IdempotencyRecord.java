@@ -0,0 +1,37 @@
+package com.tucktruck.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "idempotency_keys")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Client supplied key, scoped by customer
+    @Column(nullable = false, unique = true, length = 191)
+    private String idempotencyKey;
+
+    // Booking created for this key, inserted in the same transaction
+    @Column(nullable = false)
+    private Long bookingId;
+
+    // SHA-256 of the original request; a retry with another body is rejected
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,49 @@
+package com.tucktruck.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import org.hibernate.annotations.Immutable;
+import java.time.LocalDateTime;
+
+// One line of the driver earnings journal. Entries are only ever inserted; a driver's
+// balance is the sum of their amounts (positive: the platform owes the driver).
+@Entity
+@Immutable
+@Table(name = "ledger_entries",
+        uniqueConstraints = @UniqueConstraint(columnNames = { "booking_id", "entry_type" }),
+        indexes = {
+                @Index(name = "idx_ledger_driver_time", columnList = "driver_id, created_at"),
+                @Index(name = "idx_ledger_batch", columnList = "settlement_batch_id")
+        })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long driverId;
+
+    private Long bookingId; // null for settlements
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private LedgerEntryType entryType;
+
+    // Effect on the driver's balance
+    @Column(nullable = false)
+    private Double amount;
+
+    private Double grossFare; // booking fare, for trip entries
+    private Double commission; // platform share of grossFare (EARNING)
+
+    private Long settlementBatchId; // SETTLEMENT entries
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
@@ -0,0 +1,8 @@
+package com.tucktruck.backend.entity;
+
+public enum LedgerEntryType {
+    EARNING, // trip completed: fare minus commission, owed to the driver
+    CASH_COLLECTED, // paid in cash: the driver already holds the whole fare
+    PAYMENT_RECEIVED, // paid online: the platform holds the fare (no effect on the balance)
+    SETTLEMENT // daily settlement: clears the balance (payout or collection)
+}
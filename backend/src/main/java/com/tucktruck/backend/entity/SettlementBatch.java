@@ -0,0 +1,43 @@
+package com.tucktruck.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import org.hibernate.annotations.Immutable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// A daily settlement run: every journal entry with an id in (fromEntryId, toEntryId]
+// was netted per driver into one SETTLEMENT entry.
+@Entity
+@Immutable
+@Table(name = "settlement_batches")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SettlementBatch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Day settled, up to its end; at most one batch per day
+    @Column(nullable = false, unique = true)
+    private LocalDate businessDate;
+
+    @Column(nullable = false)
+    private Long fromEntryId; // exclusive
+
+    @Column(nullable = false)
+    private Long toEntryId; // inclusive
+
+    private Integer entryCount;
+    private Integer driverCount;
+
+    private Double totalPayout; // paid out to drivers with a positive balance
+    private Double totalCollected; // owed by drivers who collected cash
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
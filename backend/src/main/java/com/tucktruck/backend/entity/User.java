@@ -1,5 +1,6 @@
 package com.tucktruck.backend.entity;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -20,6 +21,7 @@ public class User {
     private String email;
 
     @Column(nullable = false)
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY) // never serialized, even if an entity leaks out
     private String password; // In a real app, encrypt this!
 
     private String name;
@@ -0,0 +1,23 @@
+package com.tucktruck.backend.event;
+
+import com.tucktruck.backend.entity.Booking;
+import com.tucktruck.backend.entity.BookingStatus;
+
+// Published by BookingService whenever a booking is created or moves to a new status.
+// previousStatus is null for newly created bookings. remote is true when the change was
+// committed on another node and replayed here by BookingChangeRelay; listeners that write
+// (or re-broadcast) must ignore those, listeners that only keep in-memory state apply them.
+public record BookingChangedEvent(Booking booking, BookingStatus previousStatus, boolean remote) {
+
+    public BookingChangedEvent(Booking booking, BookingStatus previousStatus) {
+        this(booking, previousStatus, false);
+    }
+
+    public BookingStatus status() {
+        return booking.getStatus();
+    }
+
+    public boolean enteredStatus(BookingStatus status) {
+        return booking.getStatus() == status && previousStatus != status;
+    }
+}
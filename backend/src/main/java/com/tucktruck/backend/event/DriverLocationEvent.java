@@ -0,0 +1,7 @@
+package com.tucktruck.backend.event;
+
+// Published for every driver location ping, with or without an active booking.
+// bookingId is null for idle drivers.
+public record DriverLocationEvent(Long driverId, Long bookingId, double latitude, double longitude,
+        long timestampMillis) {
+}
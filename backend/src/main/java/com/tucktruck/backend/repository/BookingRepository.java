@@ -1,6 +1,8 @@
 package com.tucktruck.backend.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import com.tucktruck.backend.entity.Booking;
 import com.tucktruck.backend.entity.BookingStatus;
 import com.tucktruck.backend.entity.User;
@@ -17,12 +19,27 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     // Find bookings by status
     List<Booking> findByStatus(BookingStatus status);
 
+    // Find bookings in any of the given statuses
+    List<Booking> findByStatusIn(List<BookingStatus> statuses);
+
+    // Count bookings in any of the given statuses
+    long countByStatusIn(List<BookingStatus> statuses);
+
     // Find active booking for driver (not completed/cancelled)
     List<Booking> findByDriverAndStatusIn(User driver, List<BookingStatus> statuses);
 
+    // Find completed bookings flagged as unpaid past the payment window
+    List<Booking> findByStatusAndPaymentOverdueTrue(BookingStatus status);
+
     // Find bookings waiting for driver assignment
     List<Booking> findByStatusOrderByCreatedAtAsc(BookingStatus status);
 
+    // Ids of a user's bookings (as customer or driver) not in the given statuses
+    @Query("select b.id from Booking b where (b.customer.id = :userId or b.driver.id = :userId) "
+            + "and b.status not in :statuses")
+    List<Long> findIdsByUserAndStatusNotIn(@Param("userId") Long userId,
+            @Param("statuses") List<BookingStatus> statuses);
+
     // Find all bookings for admin dashboard
     List<Booking> findAllByOrderByCreatedAtDesc();
 }
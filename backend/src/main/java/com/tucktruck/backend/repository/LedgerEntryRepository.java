@@ -0,0 +1,45 @@
+package com.tucktruck.backend.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import com.tucktruck.backend.entity.LedgerEntry;
+import com.tucktruck.backend.entity.LedgerEntryType;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+
+    boolean existsByBookingIdAndEntryType(Long bookingId, LedgerEntryType entryType);
+
+    // A driver's entries over [from, to), oldest first (idx_ledger_driver_time)
+    @Query("select e from LedgerEntry e where e.driverId = :driverId and e.createdAt >= :from and e.createdAt < :to "
+            + "order by e.id")
+    List<LedgerEntry> findByDriverInRange(@Param("driverId") Long driverId, @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    // Next page of the journal after an entry id (settlement pass)
+    List<LedgerEntry> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    // Payout lines of one settlement batch
+    List<LedgerEntry> findBySettlementBatchIdOrderByIdAsc(Long settlementBatchId);
+
+    // Unsettled balance of every driver: entries after the last settled one, settlement lines
+    // excluded (those only cancel entries at or before it)
+    @Query("select e.driverId as driverId, sum(e.amount) as balance from LedgerEntry e "
+            + "where e.id > :afterId and e.entryType <> :excluded group by e.driverId")
+    List<DriverBalance> sumBalancesAfter(@Param("afterId") Long afterId,
+            @Param("excluded") LedgerEntryType excluded);
+
+    @Query("select coalesce(sum(e.amount), 0) from LedgerEntry e "
+            + "where e.driverId = :driverId and e.id > :afterId and e.entryType <> :excluded")
+    Double sumBalanceAfter(@Param("driverId") Long driverId, @Param("afterId") Long afterId,
+            @Param("excluded") LedgerEntryType excluded);
+
+    interface DriverBalance {
+        Long getDriverId();
+
+        Double getBalance();
+    }
+}
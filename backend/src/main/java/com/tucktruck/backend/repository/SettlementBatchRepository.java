@@ -0,0 +1,15 @@
+package com.tucktruck.backend.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import com.tucktruck.backend.entity.SettlementBatch;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface SettlementBatchRepository extends JpaRepository<SettlementBatch, Long> {
+
+    // Latest batch; the next one starts after its toEntryId
+    Optional<SettlementBatch> findFirstByOrderByIdDesc();
+
+    List<SettlementBatch> findByBusinessDateBetweenOrderByBusinessDateAsc(LocalDate from, LocalDate to);
+}
@@ -14,4 +14,8 @@ public interface UserRepository extends JpaRepository<User, Long> {
     List<User> findByRole(Role role);
 
     List<User> findByRoleAndIsOnline(Role role, Boolean isOnline);
+
+    long countByRole(Role role);
+
+    long countByRoleAndIsOnline(Role role, Boolean isOnline);
 }
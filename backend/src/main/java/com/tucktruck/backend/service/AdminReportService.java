@@ -0,0 +1,55 @@
+package com.tucktruck.backend.service;
+
+import com.tucktruck.backend.entity.BookingStatus;
+import com.tucktruck.backend.entity.Role;
+import com.tucktruck.backend.entity.User;
+import com.tucktruck.backend.repository.BookingRepository;
+import com.tucktruck.backend.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Read-only admin reporting. Derived repository queries run without a transaction of their
+// own, so these methods open a read-only one to send them to the replica.
+@Service
+@RequiredArgsConstructor
+public class AdminReportService {
+
+    private final UserRepository userRepository;
+    private final BookingRepository bookingRepository;
+
+    @Transactional(readOnly = true)
+    public List<User> getAllUsers() {
+        return userRepository.findAll();
+    }
+
+    @Transactional(readOnly = true)
+    public List<User> getDrivers() {
+        return userRepository.findByRole(Role.DRIVER);
+    }
+
+    @Transactional(readOnly = true)
+    public List<User> getOnlineDrivers() {
+        return userRepository.findByRoleAndIsOnline(Role.DRIVER, true);
+    }
+
+    // Counts for the dashboard
+    @Transactional(readOnly = true)
+    public Map<String, Object> getDashboardStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalUsers", userRepository.count());
+        stats.put("totalDrivers", userRepository.countByRole(Role.DRIVER));
+        stats.put("totalCustomers", userRepository.countByRole(Role.CUSTOMER));
+        stats.put("totalBookings", bookingRepository.count());
+        stats.put("activeBookings", bookingRepository.countByStatusIn(
+                List.of(BookingStatus.TRIP_STARTED, BookingStatus.IN_TRANSIT)));
+        stats.put("completedBookings", bookingRepository.countByStatusIn(List.of(BookingStatus.COMPLETED)));
+        stats.put("pendingBookings", bookingRepository.countByStatusIn(List.of(BookingStatus.SEARCHING_DRIVER)));
+        stats.put("onlineDrivers", userRepository.countByRoleAndIsOnline(Role.DRIVER, true));
+        return stats;
+    }
+}
@@ -0,0 +1,262 @@
+package com.tucktruck.backend.service;
+
+import com.tucktruck.backend.dto.AnalyticsRollup;
+import com.tucktruck.backend.entity.Booking;
+import com.tucktruck.backend.entity.BookingStatus;
+import com.tucktruck.backend.event.BookingChangedEvent;
+import com.tucktruck.backend.repository.BookingRepository;
+import com.tucktruck.backend.util.CityResolver;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+// Incremental roll-ups of completed bookings (count, revenue, distance).
+// Every completed booking is added once to an hourly and a daily bucket for each
+// dimension, so range queries only touch the buckets inside the range instead of
+// scanning the bookings table.
+@Service
+@Lazy(false)
+@RequiredArgsConstructor
+public class AnalyticsService {
+
+    public enum Dimension {
+        ALL, DRIVER, VEHICLE_TYPE, CITY
+    }
+
+    public enum Granularity {
+        HOUR, DAY
+    }
+
+    public static final String ALL_KEY = "all";
+
+    private static final List<BookingStatus> COMPLETED_STATUSES = List.of(BookingStatus.COMPLETED,
+            BookingStatus.PAID);
+
+    private final BookingRepository bookingRepository;
+
+    @Value("${tucktruck.analytics.hourly-retention-days:90}")
+    private int hourlyRetentionDays;
+
+    private final Map<SeriesKey, ConcurrentSkipListMap<LocalDateTime, Cell>> series = new ConcurrentHashMap<>();
+
+    // Hourly buckets before this have been pruned
+    private volatile LocalDateTime hourlyFloor = LocalDateTime.MIN;
+
+    // Rebuild the cube from the database once at startup
+    @PostConstruct
+    public void rebuild() {
+        series.clear();
+        hourlyFloor = LocalDateTime.MIN;
+        for (Booking booking : bookingRepository.findByStatusIn(COMPLETED_STATUSES)) {
+            record(booking);
+        }
+    }
+
+    // A booking is counted the first time it reaches COMPLETED or PAID
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        if (COMPLETED_STATUSES.contains(event.status())
+                && !COMPLETED_STATUSES.contains(event.previousStatus())) {
+            record(event.booking());
+        }
+    }
+
+    // Totals for one key over [from, to)
+    public AnalyticsRollup total(Dimension dimension, String key, LocalDateTime from, LocalDateTime to) {
+        String normalizedKey = normalizeKey(dimension, key);
+        Totals totals = sumRange(normalizedKey, dimension, from, to);
+        return totals.toRollup(normalizedKey, null);
+    }
+
+    // Totals for every key of a dimension over [from, to), highest revenue first
+    public List<AnalyticsRollup> breakdown(Dimension dimension, LocalDateTime from, LocalDateTime to) {
+        List<AnalyticsRollup> result = new ArrayList<>();
+        for (SeriesKey seriesKey : series.keySet()) {
+            if (seriesKey.dimension() == dimension && seriesKey.granularity() == Granularity.DAY) {
+                Totals totals = sumRange(seriesKey.key(), dimension, from, to);
+                if (totals.count > 0) {
+                    result.add(totals.toRollup(seriesKey.key(), null));
+                }
+            }
+        }
+        result.sort(Comparator.comparingDouble(AnalyticsRollup::getRevenue).reversed());
+        return result;
+    }
+
+    // Per-bucket values for one key over [from, to)
+    public List<AnalyticsRollup> series(Dimension dimension, String key, Granularity granularity,
+            LocalDateTime from, LocalDateTime to) {
+        String normalizedKey = normalizeKey(dimension, key);
+        ConcurrentSkipListMap<LocalDateTime, Cell> buckets = series
+                .get(new SeriesKey(dimension, normalizedKey, granularity));
+        List<AnalyticsRollup> result = new ArrayList<>();
+        if (buckets == null || !from.isBefore(to)) {
+            return result;
+        }
+        for (Map.Entry<LocalDateTime, Cell> entry : buckets
+                .subMap(truncate(from, granularity), true, to, false).entrySet()) {
+            Totals totals = new Totals();
+            totals.add(entry.getValue());
+            result.add(totals.toRollup(normalizedKey, entry.getKey()));
+        }
+        return result;
+    }
+
+    // Drop hourly buckets past the retention window; daily buckets are kept
+    @Scheduled(cron = "0 15 3 * * *")
+    public void pruneHourlyBuckets() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(hourlyRetentionDays).truncatedTo(ChronoUnit.DAYS);
+        // Raised first: a range summed meanwhile takes the daily bucket instead of half-pruned hours
+        if (cutoff.isAfter(hourlyFloor)) {
+            hourlyFloor = cutoff;
+        }
+        for (Map.Entry<SeriesKey, ConcurrentSkipListMap<LocalDateTime, Cell>> entry : series.entrySet()) {
+            if (entry.getKey().granularity() == Granularity.HOUR) {
+                entry.getValue().headMap(cutoff).clear();
+            }
+        }
+    }
+
+    private void record(Booking booking) {
+        LocalDateTime at = booking.getCompletedAt() != null ? booking.getCompletedAt() : booking.getCreatedAt();
+        if (at == null) {
+            at = LocalDateTime.now();
+        }
+        double revenue = fare(booking);
+        double distance = booking.getDistance() != null ? booking.getDistance() : 0.0;
+
+        add(Dimension.ALL, ALL_KEY, at, revenue, distance);
+        add(Dimension.VEHICLE_TYPE, normalizeKey(Dimension.VEHICLE_TYPE, booking.getVehicleType()), at, revenue,
+                distance);
+        add(Dimension.CITY, CityResolver.resolve(booking.getPickupLocation()), at, revenue, distance);
+        if (booking.getDriver() != null && booking.getDriver().getId() != null) {
+            add(Dimension.DRIVER, booking.getDriver().getId().toString(), at, revenue, distance);
+        }
+    }
+
+    private void add(Dimension dimension, String key, LocalDateTime at, double revenue, double distance) {
+        for (Granularity granularity : Granularity.values()) {
+            series.computeIfAbsent(new SeriesKey(dimension, key, granularity), k -> new ConcurrentSkipListMap<>())
+                    .computeIfAbsent(truncate(at, granularity), k -> new Cell())
+                    .add(revenue, distance);
+        }
+    }
+
+    // Whole days come from the daily series, the partial days at either end from the hourly one.
+    // A partial day whose hours have been pruned counts as the whole day.
+    private Totals sumRange(String key, Dimension dimension, LocalDateTime from, LocalDateTime to) {
+        Totals totals = new Totals();
+        NavigableMap<LocalDateTime, Cell> hours = series.get(new SeriesKey(dimension, key, Granularity.HOUR));
+        NavigableMap<LocalDateTime, Cell> days = series.get(new SeriesKey(dimension, key, Granularity.DAY));
+        if (hours == null || days == null || !from.isBefore(to)) {
+            return totals;
+        }
+
+        LocalDateTime floor = hourlyFloor;
+        LocalDateTime start = truncate(from, Granularity.HOUR);
+        LocalDateTime firstFullDay = truncate(from, Granularity.DAY);
+        if (firstFullDay.isBefore(floor)) {
+            start = firstFullDay;
+        } else if (firstFullDay.isBefore(start)) {
+            firstFullDay = firstFullDay.plusDays(1);
+        }
+        LocalDateTime end = to;
+        LocalDateTime lastFullDay = truncate(to, Granularity.DAY);
+        if (lastFullDay.isBefore(floor) && lastFullDay.isBefore(to)) {
+            lastFullDay = lastFullDay.plusDays(1);
+            end = lastFullDay;
+        }
+
+        if (firstFullDay.isBefore(lastFullDay)) {
+            addHours(totals, hours, start, firstFullDay);
+            totals.addAll(days.subMap(firstFullDay, true, lastFullDay, false));
+            addHours(totals, hours, lastFullDay, end);
+        } else {
+            addHours(totals, hours, start, end);
+        }
+        return totals;
+    }
+
+    private static void addHours(Totals totals, NavigableMap<LocalDateTime, Cell> hours, LocalDateTime from,
+            LocalDateTime to) {
+        if (from.isBefore(to)) {
+            totals.addAll(hours.subMap(from, true, to, false));
+        }
+    }
+
+    private static LocalDateTime truncate(LocalDateTime time, Granularity granularity) {
+        return time.truncatedTo(granularity == Granularity.HOUR ? ChronoUnit.HOURS : ChronoUnit.DAYS);
+    }
+
+    private static String normalizeKey(Dimension dimension, String key) {
+        if (dimension == Dimension.ALL) {
+            return ALL_KEY;
+        }
+        if (key == null || key.isBlank()) {
+            return CityResolver.UNKNOWN;
+        }
+        return key.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Revenue of a booking: the final price when known, otherwise the estimate
+    static double fare(Booking booking) {
+        if (booking.getFinalPrice() != null) {
+            return booking.getFinalPrice();
+        }
+        return booking.getEstimatedPrice() != null ? booking.getEstimatedPrice() : 0.0;
+    }
+
+    private record SeriesKey(Dimension dimension, String key, Granularity granularity) {
+    }
+
+    private static final class Cell {
+        private final LongAdder count = new LongAdder();
+        private final DoubleAdder revenue = new DoubleAdder();
+        private final DoubleAdder distance = new DoubleAdder();
+
+        void add(double revenueDelta, double distanceDelta) {
+            count.increment();
+            revenue.add(revenueDelta);
+            distance.add(distanceDelta);
+        }
+    }
+
+    private static final class Totals {
+        private long count;
+        private double revenue;
+        private double distance;
+
+        void add(Cell cell) {
+            count += cell.count.sum();
+            revenue += cell.revenue.sum();
+            distance += cell.distance.sum();
+        }
+
+        void addAll(Map<LocalDateTime, Cell> cells) {
+            for (Cell cell : cells.values()) {
+                add(cell);
+            }
+        }
+
+        AnalyticsRollup toRollup(String key, LocalDateTime bucketStart) {
+            return new AnalyticsRollup(key, bucketStart, count, revenue, distance);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.tucktruck.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tucktruck.backend.cluster.ClusterMessage;
+import com.tucktruck.backend.cluster.ClusterTransport;
+import com.tucktruck.backend.datasource.ReplicaRoutingDataSource;
+import com.tucktruck.backend.entity.Booking;
+import com.tucktruck.backend.entity.BookingStatus;
+import com.tucktruck.backend.event.BookingChangedEvent;
+import com.tucktruck.backend.repository.BookingRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Replays committed booking changes on the other nodes. The origin broadcasts a compact
+// (sequence, id, status, previous status) message after commit; every other node reloads the
+// booking from the primary and publishes it as a remote BookingChangedEvent with the status
+// pair from the message, so the in-memory state kept by the feed, response cache, timeouts,
+// geofences, surge, ETA and analytics sees every transition, including ones the booking has
+// already moved past. The transport may drop messages; a gap in an origin's sequence makes
+// the feed reset its versions, so no ETag issued before the gap matches again.
+@Slf4j
+@Service
+@Lazy(false)
+@RequiredArgsConstructor
+public class BookingChangeRelay {
+
+    private final ClusterTransport clusterTransport;
+    private final BookingRepository bookingRepository;
+    private final BookingFeedService bookingFeedService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+
+    // Sequence of the changes this node has sent, and of the last one received per origin
+    private final AtomicLong sentSeq = new AtomicLong();
+    private final Map<String, Long> receivedSeq = new ConcurrentHashMap<>();
+
+    record BookingChangeMessage(long seq, Long bookingId, BookingStatus status, BookingStatus previousStatus) {
+    }
+
+    @PostConstruct
+    void init() {
+        clusterTransport.addListener(this::onClusterMessage);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        if (event.remote()) {
+            return;
+        }
+        // Numbered and queued under one lock, so peers receive the sequence in order
+        synchronized (sentSeq) {
+            BookingChangeMessage message = new BookingChangeMessage(sentSeq.incrementAndGet(),
+                    event.booking().getId(), event.status(), event.previousStatus());
+            try {
+                clusterTransport.broadcast(ClusterMessage.Type.BOOKING_CHANGED, null,
+                        objectMapper.writeValueAsString(message));
+            } catch (JsonProcessingException e) {
+                throw new RuntimeException("Could not encode booking change", e);
+            }
+        }
+    }
+
+    private void onClusterMessage(ClusterMessage message) {
+        if (message.type() != ClusterMessage.Type.BOOKING_CHANGED
+                || clusterTransport.nodeId().equals(message.origin())) {
+            return;
+        }
+        BookingChangeMessage change;
+        try {
+            change = objectMapper.readValue(message.payload(), BookingChangeMessage.class);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not decode booking change", e);
+        }
+        // Messages from one origin arrive in order, so any other sequence means some were lost
+        Long last = receivedSeq.put(message.origin(), change.seq());
+        if (change.seq() != (last != null ? last : 0L) + 1) {
+            log.warn("Booking changes from node {} missed ({} after {}); resetting feed versions",
+                    message.origin(), change.seq(), last);
+            bookingFeedService.resync();
+        }
+
+        // The origin has committed; a replica may not have the row yet
+        Booking booking = ReplicaRoutingDataSource.onPrimary(
+                () -> bookingRepository.findById(change.bookingId()).orElse(null));
+        if (booking == null) {
+            log.debug("Booking {} changed on node {} no longer exists", change.bookingId(), message.origin());
+            return;
+        }
+        // Loaded outside a transaction, so the entity is detached: replay the transition this
+        // message describes even if the booking has since moved on; the later ones follow
+        booking.setStatus(change.status());
+        eventPublisher.publishEvent(new BookingChangedEvent(booking, change.previousStatus(), true));
+    }
+}
@@ -0,0 +1,349 @@
+package com.tucktruck.backend.service;
+
+import com.tucktruck.backend.datasource.ReplicaRoutingDataSource;
+import com.tucktruck.backend.dto.BookingChange;
+import com.tucktruck.backend.dto.BookingFeedResponse;
+import com.tucktruck.backend.entity.Booking;
+import com.tucktruck.backend.entity.BookingStatus;
+import com.tucktruck.backend.event.BookingChangedEvent;
+import com.tucktruck.backend.repository.BookingRepository;
+import com.tucktruck.backend.util.GeoUtils;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Change sequence over all bookings plus a driver-facing delta feed of the pending queue.
+// Every committed booking change gets the next sequence number and goes into a fixed
+// size ring buffer. Drivers ask for "changes since N" filtered by vehicle type and radius;
+// if N has already been overwritten they get a full snapshot instead.
+// Versions of paid or cancelled bookings, and of customers and drivers without newer changes,
+// are dropped once per ring cycle after their change has been overwritten; anything without
+// a version then reports the last pruned sequence, which is never below a dropped version.
+@Service
+@RequiredArgsConstructor
+public class BookingFeedService {
+
+    private static final long MAX_WAIT_MS = 30_000;
+
+    private final BookingRepository bookingRepository;
+    private final DriverPresenceService driverPresenceService;
+
+    @Value("${tucktruck.feed.capacity:8192}")
+    private int capacity;
+
+    private AtomicReferenceArray<BookingChange> ring;
+
+    // Start above any sequence handed out before a restart, so old cursors trigger a reset
+    private volatile long lastSeq;
+    private long startSeq;
+
+    // Latest sequence per booking, customer and driver (used as change versions)
+    private final Map<Long, Long> bookingVersions = new ConcurrentHashMap<>();
+    private final Map<Long, Long> customerVersions = new ConcurrentHashMap<>();
+    private final Map<Long, Long> driverVersions = new ConcurrentHashMap<>();
+
+    // Version of everything without an entry above; only moves up
+    private volatile long prunedSeq;
+    // Finished bookings whose change left the ring since the last prune
+    private final List<Long> agedOut = new ArrayList<>();
+
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+    // Filter a driver applies to the feed
+    public record FeedFilter(String vehicleType, Double latitude, Double longitude, Double radiusKm,
+            Long driverId) {
+    }
+
+    @PostConstruct
+    void init() {
+        ring = new AtomicReferenceArray<>(capacity);
+        startSeq = System.currentTimeMillis() * 1000;
+        lastSeq = startSeq;
+        prunedSeq = startSeq;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        BookingChange change = append(event.booking(), event.previousStatus());
+        wakeWaiters(change);
+    }
+
+    // Changes after "since" that match the filter; a snapshot if since is too old or unknown
+    public BookingFeedResponse changesSince(long since, FeedFilter filter) {
+        FeedFilter resolved = resolve(filter);
+        long head = lastSeq;
+        if (since > head || since < head - capacity || since < startSeq) {
+            return snapshot(resolved, head);
+        }
+
+        List<BookingChange> changes = new ArrayList<>();
+        for (long seq = since + 1; seq <= head; seq++) {
+            BookingChange change = ring.get(slot(seq));
+            if (change == null || change.getSeq() != seq) {
+                return snapshot(resolved, head); // overwritten while reading
+            }
+            if (matches(change, resolved)) {
+                changes.add(change);
+            }
+        }
+        return new BookingFeedResponse(head, false, changes);
+    }
+
+    // Long poll: answer now if there is something new, otherwise park until a matching change or timeout
+    public DeferredResult<BookingFeedResponse> waitForChanges(long since, FeedFilter filter, long waitMs) {
+        long timeout = Math.max(0, Math.min(waitMs, MAX_WAIT_MS));
+        FeedFilter resolved = resolve(filter);
+        DeferredResult<BookingFeedResponse> result = new DeferredResult<>(timeout);
+
+        BookingFeedResponse immediate = changesSince(since, resolved);
+        if (timeout == 0 || immediate.isReset() || !immediate.getChanges().isEmpty()) {
+            result.setResult(immediate);
+            return result;
+        }
+
+        Waiter waiter = new Waiter(since, resolved, result);
+        result.onTimeout(() -> result.setResult(new BookingFeedResponse(lastSeq, false, List.of())));
+        result.onCompletion(() -> waiters.remove(waiter));
+        waiters.add(waiter);
+
+        // A change may have landed between the first check and registering
+        BookingFeedResponse recheck = changesSince(since, resolved);
+        if (recheck.isReset() || !recheck.getChanges().isEmpty()) {
+            result.setResult(recheck);
+        }
+        return result;
+    }
+
+    // Current change version of a booking (the pruned sequence if unchanged for a ring cycle)
+    public long getVersion(Long bookingId) {
+        return version(bookingVersions, bookingId);
+    }
+
+    // Version of everything listed for a customer
+    public long getCustomerVersion(Long customerId) {
+        return version(customerVersions, customerId);
+    }
+
+    // Version of everything listed for a driver
+    public long getDriverVersion(Long driverId) {
+        return version(driverVersions, driverId);
+    }
+
+    public long getLastSeq() {
+        return lastSeq;
+    }
+
+    // The change that produced this version, while it is still in the ring
+    public BookingChange changeAt(long version) {
+        BookingChange change = ring.get(slot(version));
+        return change != null && change.getSeq() == version ? change : null;
+    }
+
+    // Versions from before this node started, or whose change has left the ring, are old
+    // enough for any replica the lag monitor lets reads go to
+    public boolean isSettled(long version) {
+        return version == startSeq || version <= lastSeq - capacity;
+    }
+
+    // Some changes were never seen here (lost cluster messages): move every version past any
+    // ETag handed out so far, and burn a sequence number so cursors from before get a snapshot
+    public void resync() {
+        synchronized (this) {
+            long seq = lastSeq + 1;
+            ring.set(slot(seq), null);
+            prunedSeq = seq;
+            bookingVersions.clear();
+            customerVersions.clear();
+            driverVersions.clear();
+            agedOut.clear();
+            lastSeq = seq;
+        }
+        for (Waiter waiter : waiters) {
+            waiter.result().setResult(changesSince(waiter.since(), waiter.filter()));
+        }
+    }
+
+    // A user's name, phone or vehicle changed: new versions for their booking lists and for
+    // the given bookings, which embed those fields. Uses up a sequence that no filter matches.
+    public void touchUser(Long userId, Collection<Long> bookingIds) {
+        synchronized (this) {
+            long seq = claim(new BookingChange());
+            customerVersions.put(userId, seq);
+            driverVersions.put(userId, seq);
+            for (Long bookingId : bookingIds) {
+                bookingVersions.put(bookingId, seq);
+            }
+            advance(seq);
+        }
+    }
+
+    private synchronized BookingChange append(Booking booking, BookingStatus previousStatus) {
+        BookingChange change = toChange(booking, previousStatus);
+        long seq = claim(change);
+        bookingVersions.put(booking.getId(), seq);
+        if (booking.getCustomer() != null) {
+            customerVersions.put(booking.getCustomer().getId(), seq);
+        }
+        if (booking.getDriver() != null) {
+            driverVersions.put(booking.getDriver().getId(), seq);
+        }
+        if (booking.getPreviousDriverId() != null) {
+            // The booking dropped out of that driver's lists
+            driverVersions.put(booking.getPreviousDriverId(), seq);
+        }
+        advance(seq);
+        return change;
+    }
+
+    // Puts the change into the next ring slot; callers hold the lock and then call advance
+    private long claim(BookingChange change) {
+        long seq = lastSeq + 1;
+        change.setSeq(seq);
+        BookingChange evicted = ring.get(slot(seq));
+        if (evicted != null && (evicted.getStatus() == BookingStatus.PAID
+                || evicted.getStatus() == BookingStatus.CANCELLED)) {
+            agedOut.add(evicted.getBookingId());
+        }
+        ring.set(slot(seq), change);
+        return seq;
+    }
+
+    private void advance(long seq) {
+        lastSeq = seq;
+        if (seq % capacity == 0) {
+            prune(seq - capacity);
+        }
+    }
+
+    // Drops versions at or below limit, whose changes are no longer in the ring. The floor is
+    // raised first, so a reader that misses an entry never gets a version older than it had.
+    private void prune(long limit) {
+        if (limit <= prunedSeq) {
+            agedOut.clear(); // a resync already dropped them
+            return;
+        }
+        prunedSeq = limit;
+        for (Long bookingId : agedOut) {
+            bookingVersions.computeIfPresent(bookingId, (id, version) -> version <= limit ? null : version);
+        }
+        agedOut.clear();
+        customerVersions.values().removeIf(version -> version <= limit);
+        driverVersions.values().removeIf(version -> version <= limit);
+    }
+
+    private long version(Map<Long, Long> versions, Long id) {
+        Long version = versions.get(id);
+        return version != null ? version : prunedSeq;
+    }
+
+    private void wakeWaiters(BookingChange change) {
+        for (Waiter waiter : waiters) {
+            if (matches(change, waiter.filter())) {
+                waiter.result().setResult(changesSince(waiter.since(), waiter.filter()));
+            }
+        }
+    }
+
+    private BookingFeedResponse snapshot(FeedFilter filter, long head) {
+        List<BookingChange> changes = new ArrayList<>();
+        // Must not be older than head, or the client would skip changes when it polls from there
+        for (Booking booking : ReplicaRoutingDataSource.onPrimary(
+                () -> bookingRepository.findByStatusOrderByCreatedAtAsc(BookingStatus.SEARCHING_DRIVER))) {
+            BookingChange change = toChange(booking, null);
+            change.setSeq(getVersion(booking.getId()));
+            if (matches(change, filter)) {
+                changes.add(change);
+            }
+        }
+        return new BookingFeedResponse(head, true, changes);
+    }
+
+    private static BookingChange toChange(Booking booking, BookingStatus previousStatus) {
+        BookingChange change = new BookingChange();
+        change.setBookingId(booking.getId());
+        change.setStatus(booking.getStatus());
+        change.setFilterVehicleType(booking.getVehicleType());
+        change.setFilterLatitude(booking.getPickupLatitude());
+        change.setFilterLongitude(booking.getPickupLongitude());
+        change.setDriverId(booking.getDriver() != null ? booking.getDriver().getId() : null);
+        change.setRowVersion(booking.getVersion());
+
+        if (booking.getStatus() == BookingStatus.SEARCHING_DRIVER) {
+            change.setOp(BookingChange.Op.UPSERT);
+            change.setVehicleType(booking.getVehicleType());
+            change.setPickupLocation(booking.getPickupLocation());
+            change.setDropLocation(booking.getDropLocation());
+            change.setPickupLatitude(booking.getPickupLatitude());
+            change.setPickupLongitude(booking.getPickupLongitude());
+            change.setDropLatitude(booking.getDropLatitude());
+            change.setDropLongitude(booking.getDropLongitude());
+            change.setDistance(booking.getDistance());
+            change.setEstimatedPrice(booking.getEstimatedPrice());
+            change.setCreatedAt(booking.getCreatedAt());
+        } else if (previousStatus == BookingStatus.SEARCHING_DRIVER) {
+            change.setOp(BookingChange.Op.REMOVE);
+        } else {
+            change.setOp(BookingChange.Op.STATUS);
+        }
+        return change;
+    }
+
+    // UPSERTs by vehicle type and radius; STATUS only for the driver's own bookings. REMOVE
+    // always goes out: the driver may have received the UPSERT from somewhere else, and the
+    // radius is centred on where they are now
+    private static boolean matches(BookingChange change, FeedFilter filter) {
+        if (change.getBookingId() == null) {
+            return false; // version bump from touchUser
+        }
+        if (change.getOp() == BookingChange.Op.STATUS) {
+            return filter.driverId() != null && filter.driverId().equals(change.getDriverId());
+        }
+        if (change.getOp() == BookingChange.Op.REMOVE) {
+            return true;
+        }
+        if (filter.vehicleType() != null && !filter.vehicleType().equalsIgnoreCase(change.getFilterVehicleType())) {
+            return false;
+        }
+        if (filter.radiusKm() != null && filter.latitude() != null && filter.longitude() != null) {
+            if (!GeoUtils.isValidCoordinate(change.getFilterLatitude(), change.getFilterLongitude())) {
+                return false;
+            }
+            double distance = GeoUtils.haversineKm(filter.latitude(), filter.longitude(),
+                    change.getFilterLatitude(), change.getFilterLongitude());
+            return distance <= filter.radiusKm();
+        }
+        return true;
+    }
+
+    // Fall back to the driver's last known position when no coordinates are given
+    private FeedFilter resolve(FeedFilter filter) {
+        if (filter.latitude() != null || filter.driverId() == null || filter.radiusKm() == null) {
+            return filter;
+        }
+        DriverPresenceService.DriverPosition position = driverPresenceService.getPosition(filter.driverId());
+        if (position == null) {
+            return filter;
+        }
+        return new FeedFilter(filter.vehicleType(), position.latitude(), position.longitude(), filter.radiusKm(),
+                filter.driverId());
+    }
+
+    private int slot(long seq) {
+        return (int) (seq % capacity);
+    }
+
+    private record Waiter(long since, FeedFilter filter, DeferredResult<BookingFeedResponse> result) {
+    }
+}
@@ -0,0 +1,285 @@
+package com.tucktruck.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tucktruck.backend.cluster.ClusterMessage;
+import com.tucktruck.backend.cluster.ClusterTransport;
+import com.tucktruck.backend.datasource.ReplicaRoutingDataSource;
+import com.tucktruck.backend.dto.BookingChange;
+import com.tucktruck.backend.dto.BookingResponse;
+import com.tucktruck.backend.entity.Booking;
+import com.tucktruck.backend.entity.BookingStatus;
+import com.tucktruck.backend.event.BookingChangedEvent;
+import com.tucktruck.backend.repository.BookingRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// ETags and serialized bodies for the booking endpoints that UIs poll.
+// ETags come from the change versions kept by BookingFeedService, so a matching
+// If-None-Match is answered without touching the database. Bodies are cached per
+// version and wire format and dropped when BookingService changes the booking. Misses are
+// loaded from the replica and checked against the booking row version behind the ETag.
+// Entities are converted to the flat response DTOs before serializing. Profile edits and
+// deletions call onUserChanged, which moves only that user's versions (lists and open
+// bookings) here and, over the cluster transport, on the other nodes.
+@Service
+@RequiredArgsConstructor
+public class BookingResponseCache {
+
+    private final BookingFeedService bookingFeedService;
+    private final ClusterTransport clusterTransport;
+    private final BookingRepository bookingRepository;
+    private final ObjectMapper objectMapper;
+    private final MappingJackson2CborHttpMessageConverter cborConverter;
+    private final MappingJackson2SmileHttpMessageConverter smileConverter;
+
+    @Value("${tucktruck.response-cache.size:5000}")
+    private int cacheSize;
+
+    private Map<String, CachedBody> bodies;
+    private final LongAdder replicaBehind = new LongAdder();
+
+    public static final byte[] EMPTY = new byte[0];
+
+    // Encodings a client can ask for with Accept
+    public enum Format {
+        JSON(MediaType.APPLICATION_JSON, ""),
+        CBOR(MediaType.parseMediaType("application/cbor"), "-cbor"),
+        SMILE(MediaType.parseMediaType("application/x-jackson-smile"), "-smile");
+
+        private final MediaType mediaType;
+        private final String suffix;
+
+        Format(MediaType mediaType, String suffix) {
+            this.mediaType = mediaType;
+            this.suffix = suffix;
+        }
+
+        public MediaType mediaType() {
+            return mediaType;
+        }
+
+        // First supported type in the Accept header, JSON otherwise
+        public static Format fromAccept(String accept) {
+            if (accept == null) {
+                return JSON;
+            }
+            for (MediaType type : MediaType.parseMediaTypes(accept)) {
+                if (type.isCompatibleWith(MediaType.APPLICATION_JSON) && !type.isWildcardType()) {
+                    return JSON;
+                }
+                if (type.equalsTypeAndSubtype(CBOR.mediaType)) {
+                    return CBOR;
+                }
+                if (type.equalsTypeAndSubtype(SMILE.mediaType)) {
+                    return SMILE;
+                }
+            }
+            return JSON;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        bodies = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedBody> eldest) {
+                return size() > cacheSize;
+            }
+        });
+        clusterTransport.addListener(this::onClusterMessage);
+    }
+
+    public String bookingEtag(Long bookingId, Format format) {
+        return etag("b", bookingId, bookingFeedService.getVersion(bookingId), format);
+    }
+
+    public String customerEtag(Long customerId, Format format) {
+        return etag("c", customerId, bookingFeedService.getCustomerVersion(customerId), format);
+    }
+
+    public String driverEtag(Long driverId, Format format) {
+        return etag("d", driverId, bookingFeedService.getDriverVersion(driverId), format);
+    }
+
+    public String driverActiveEtag(Long driverId, Format format) {
+        return etag("a", driverId, bookingFeedService.getDriverVersion(driverId), format);
+    }
+
+    // Serialized body for the given ETag, loading and caching it on a miss (null body -> EMPTY).
+    // Bookings (single or in a collection) are sent as BookingResponse.
+    public byte[] getBody(String etag, Format format, Supplier<Object> loader) {
+        String key = cacheKey(etag, format);
+        CachedBody cached = bodies.get(key);
+        if (cached != null && cached.etag().equals(etag)) {
+            return cached.body();
+        }
+        Object value = toResponse(load(etagVersion(etag), loader));
+        byte[] body;
+        try {
+            body = value == null ? EMPTY : mapper(format).writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not serialize response", e);
+        }
+        bodies.put(key, new CachedBody(etag, body));
+        return body;
+    }
+
+    // Read from the replica, unless it has not yet applied the change behind the ETag's version;
+    // a lagging replica must not cache an older body under the newer ETag
+    private Object load(long version, Supplier<Object> loader) {
+        if (bookingFeedService.isSettled(version)) {
+            return loader.get();
+        }
+        BookingChange change = bookingFeedService.changeAt(version);
+        if (change == null || change.getBookingId() == null) {
+            // A resync or a user change: nothing in the rows to compare against
+            return ReplicaRoutingDataSource.onPrimary(loader);
+        }
+        Object value = loader.get();
+        if (contains(value, change.getBookingId(), change.getRowVersion())) {
+            return value;
+        }
+        replicaBehind.increment();
+        return ReplicaRoutingDataSource.onPrimary(loader);
+    }
+
+    // Fills that found the replica behind the ETag and went to the primary
+    public long getReplicaBehind() {
+        return replicaBehind.sum();
+    }
+
+    // True when the If-None-Match header contains the current ETag
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        Booking booking = event.booking();
+        remove("b", booking.getId());
+        if (booking.getCustomer() != null) {
+            remove("c", booking.getCustomer().getId());
+        }
+        if (booking.getDriver() != null) {
+            remove("d", booking.getDriver().getId());
+            remove("a", booking.getDriver().getId());
+        }
+        if (booking.getPreviousDriverId() != null) {
+            remove("d", booking.getPreviousDriverId());
+            remove("a", booking.getPreviousDriverId());
+        }
+    }
+
+    // A user's name, phone or vehicle changed, or the user was deleted. Signups and online
+    // status do not appear in any booking body, so they need no call.
+    public void onUserChanged(Long userId) {
+        touchUser(userId);
+        clusterTransport.broadcast(ClusterMessage.Type.USER_CHANGED, null, String.valueOf(userId));
+    }
+
+    private void onClusterMessage(ClusterMessage message) {
+        if (message.type() == ClusterMessage.Type.USER_CHANGED
+                && !clusterTransport.nodeId().equals(message.origin())) {
+            touchUser(Long.valueOf(message.payload()));
+        }
+    }
+
+    // Finished bookings keep the names they were shown with until they change again
+    private void touchUser(Long userId) {
+        List<Long> open = ReplicaRoutingDataSource.onPrimary(() -> bookingRepository.findIdsByUserAndStatusNotIn(
+                userId, List.of(BookingStatus.PAID, BookingStatus.CANCELLED)));
+        bookingFeedService.touchUser(userId, open);
+    }
+
+    private String etag(String scope, Long id, long version, Format format) {
+        return "\"" + scope + id + "-" + version + format.suffix + "\"";
+    }
+
+    private void remove(String scope, Long id) {
+        for (Format format : Format.values()) {
+            bodies.remove(scope + ":" + id + format.suffix);
+        }
+    }
+
+    // Replicas apply commits in order, so having the change that produced the version means
+    // having everything before it
+    private static boolean contains(Object value, Long bookingId, long rowVersion) {
+        if (value instanceof Booking booking) {
+            return booking.getId().equals(bookingId) && booking.getVersion() >= rowVersion;
+        }
+        if (value instanceof Collection<?> items) {
+            for (Object item : items) {
+                if (item instanceof Booking booking && contains(booking, bookingId, rowVersion)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // "b12-345-cbor" -> 345
+    private static long etagVersion(String etag) {
+        int start = etag.indexOf('-') + 1;
+        int end = start;
+        while (end < etag.length() && Character.isDigit(etag.charAt(end))) {
+            end++;
+        }
+        return Long.parseLong(etag.substring(start, end));
+    }
+
+    // "b12-..." -> "b:12" (plus the format suffix)
+    private static String cacheKey(String etag, Format format) {
+        int dash = etag.indexOf('-');
+        return etag.charAt(1) + ":" + etag.substring(2, dash) + format.suffix;
+    }
+
+    private ObjectMapper mapper(Format format) {
+        return switch (format) {
+            case JSON -> objectMapper;
+            case CBOR -> cborConverter.getObjectMapper();
+            case SMILE -> smileConverter.getObjectMapper();
+        };
+    }
+
+    private static Object toResponse(Object value) {
+        if (value instanceof Booking booking) {
+            return BookingResponse.from(booking);
+        }
+        if (value instanceof Collection<?> items) {
+            return items.stream()
+                    .map(item -> item instanceof Booking booking ? BookingResponse.from(booking) : item)
+                    .toList();
+        }
+        return value;
+    }
+
+    private record CachedBody(String etag, byte[] body) {
+    }
+}
@@ -1,14 +1,22 @@
 package com.tucktruck.backend.service;
 
+import com.tucktruck.backend.dto.PriceQuote;
+import com.tucktruck.backend.dto.RouteEstimate;
 import com.tucktruck.backend.entity.*;
+import com.tucktruck.backend.event.BookingChangedEvent;
 import com.tucktruck.backend.repository.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Arrays;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -17,26 +25,46 @@ public class BookingService {
     private final BookingRepository bookingRepository;
     private final UserRepository userRepository;
     private final LocationRepository locationRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PricingService pricingService;
+    private final DriverPresenceService driverPresenceService;
+    private final LocationFilterService locationFilterService;
+    private final RoutingService routingService;
 
     // Create new booking (Customer action)
     @Transactional
     public Booking createBooking(Booking booking) {
-        booking.setStatus(BookingStatus.CREATED);
+        // New bookings go straight to searching driver in a single insert
+        booking.setId(null);
+        booking.setVersion(0);
+        booking.setStatus(BookingStatus.SEARCHING_DRIVER);
         booking.setCreatedAt(LocalDateTime.now());
 
-        // Calculate estimated price based on distance
+        // Road distance from the route graph when the client did not send one
+        if (booking.getDistance() == null || booking.getDistance() <= 0) {
+            RouteEstimate route = routingService.estimate(booking.getPickupLatitude(), booking.getPickupLongitude(),
+                    booking.getPickupLocation(), booking.getDropLatitude(), booking.getDropLongitude(),
+                    booking.getDropLocation());
+            if (route != null) {
+                booking.setDistance(route.getDistanceKm());
+            }
+        }
+
+        // Calculate estimated price based on distance and current zone surge
         if (booking.getDistance() != null) {
-            booking.setEstimatedPrice(calculatePrice(booking.getDistance(), booking.getVehicleType()));
+            PriceQuote quote = pricingService.quote(booking.getDistance(), booking.getVehicleType(),
+                    booking.getPickupLatitude(), booking.getPickupLongitude());
+            booking.setEstimatedPrice(quote.getEstimatedPrice());
+            booking.setSurgeMultiplier(quote.getSurgeMultiplier());
         }
 
         Booking savedBooking = bookingRepository.save(booking);
-
-        // Immediately move to searching driver
-        savedBooking.setStatus(BookingStatus.SEARCHING_DRIVER);
-        return bookingRepository.save(savedBooking);
+        publishChange(savedBooking, null);
+        return savedBooking;
     }
 
     // Get customer's bookings
+    @Transactional(readOnly = true)
     public List<Booking> getCustomerBookings(Long customerId) {
         User customer = userRepository.findById(customerId)
                 .orElseThrow(() -> new RuntimeException("Customer not found"));
@@ -44,6 +72,7 @@ public class BookingService {
     }
 
     // Get driver's bookings
+    @Transactional(readOnly = true)
     public List<Booking> getDriverBookings(Long driverId) {
         User driver = userRepository.findById(driverId)
                 .orElseThrow(() -> new RuntimeException("Driver not found"));
@@ -51,6 +80,7 @@ public class BookingService {
     }
 
     // Get driver's active booking (only one active trip at a time)
+    @Transactional(readOnly = true)
     public Booking getDriverActiveBooking(Long driverId) {
         User driver = userRepository.findById(driverId)
                 .orElseThrow(() -> new RuntimeException("Driver not found"));
@@ -66,6 +96,7 @@ public class BookingService {
     }
 
     // Get all bookings waiting for driver (Admin/Auto-assignment)
+    @Transactional(readOnly = true)
     public List<Booking> getPendingBookings() {
         return bookingRepository.findByStatusOrderByCreatedAtAsc(BookingStatus.SEARCHING_DRIVER);
     }
@@ -83,11 +114,14 @@ public class BookingService {
             throw new RuntimeException("User is not a driver");
         }
 
+        BookingStatus previousStatus = booking.getStatus();
         booking.setDriver(driver);
         booking.setStatus(BookingStatus.DRIVER_ASSIGNED);
         booking.setDriverAssignedAt(LocalDateTime.now());
 
-        return bookingRepository.save(booking);
+        Booking saved = bookingRepository.save(booking);
+        publishChange(saved, previousStatus);
+        return saved;
     }
 
     // Update booking status (Driver actions)
@@ -96,6 +130,7 @@ public class BookingService {
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new RuntimeException("Booking not found"));
 
+        BookingStatus previousStatus = booking.getStatus();
         booking.setStatus(newStatus);
 
         // Update timestamps based on status
@@ -108,12 +143,88 @@ public class BookingService {
                 break;
         }
 
-        return bookingRepository.save(booking);
+        Booking saved = bookingRepository.save(booking);
+        publishChange(saved, previousStatus);
+        return saved;
+    }
+
+    // Move a booking on only if it is still in one of the expected statuses (automatic transitions).
+    // A concurrent write between the check and the commit fails on Booking's version
+    // (OptimisticLockingFailureException) instead of being overwritten.
+    @Transactional
+    public boolean advanceBookingStatus(Long bookingId, List<BookingStatus> expected, BookingStatus newStatus) {
+        Booking booking = bookingRepository.findById(bookingId)
+                .orElseThrow(() -> new RuntimeException("Booking not found"));
+        if (!expected.contains(booking.getStatus())) {
+            return false;
+        }
+        updateBookingStatus(bookingId, newStatus);
+        return true;
+    }
+
+    // Apply expired deadlines in one transaction (BookingTimeoutService).
+    // Bookings that have left the expected status in the meantime are skipped; one changed
+    // after it was read here fails the batch on its version, and the caller retries.
+    @Transactional
+    public List<Booking> expireBookings(Map<Long, BookingStatus> expectedStatuses) {
+        List<Booking> changed = new ArrayList<>();
+        List<BookingStatus> previousStatuses = new ArrayList<>();
+        for (Booking booking : bookingRepository.findAllById(expectedStatuses.keySet())) {
+            BookingStatus previousStatus = booking.getStatus();
+            if (previousStatus != expectedStatuses.get(booking.getId())) {
+                continue;
+            }
+            switch (previousStatus) {
+                case SEARCHING_DRIVER:
+                    // Nobody took it in time
+                    booking.setStatus(BookingStatus.CANCELLED);
+                    break;
+                case DRIVER_ASSIGNED:
+                    // Driver never reached the pickup; back to the queue for another driver
+                    booking.setPreviousDriverId(booking.getDriver() != null ? booking.getDriver().getId() : null);
+                    booking.setDriver(null);
+                    booking.setStatus(BookingStatus.SEARCHING_DRIVER);
+                    break;
+                case COMPLETED:
+                    // Payment never confirmed; flag it for an admin, nobody has been paid
+                    if (Boolean.TRUE.equals(booking.getPaymentOverdue())) {
+                        continue;
+                    }
+                    booking.setPaymentOverdue(true);
+                    break;
+                default:
+                    continue;
+            }
+            changed.add(booking);
+            previousStatuses.add(previousStatus);
+        }
+
+        List<Booking> saved = bookingRepository.saveAll(changed);
+        for (int i = 0; i < saved.size(); i++) {
+            publishChange(saved.get(i), previousStatuses.get(i));
+        }
+        return saved;
     }
 
     // Update driver location (Real-time tracking)
+    // Returns null when the ping was filtered out (duplicate or outlier) and nothing was stored
     @Transactional
     public Location updateDriverLocation(Long bookingId, Long driverId, Double latitude, Double longitude) {
+        LocationFilterService.Fix fix = locationFilterService.filter(driverId, latitude, longitude,
+                System.currentTimeMillis());
+        if (fix.decision() == LocationFilterService.Decision.INVALID) {
+            throw new RuntimeException("Invalid coordinates");
+        }
+        if (!fix.store()) {
+            // Nothing is written, so nothing can roll back: keep the track (outlier count, smoothed
+            // position) now. Near-identical pings still keep the driver live for tracking and geofences
+            locationFilterService.accept(driverId, fix);
+            if (fix.live()) {
+                driverPresenceService.recordLocation(driverId, bookingId, fix.latitude(), fix.longitude());
+            }
+            return null;
+        }
+
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new RuntimeException("Booking not found"));
 
@@ -123,36 +234,42 @@ public class BookingService {
         Location location = new Location();
         location.setBooking(booking);
         location.setDriver(driver);
-        location.setLatitude(latitude);
-        location.setLongitude(longitude);
+        location.setLatitude(fix.latitude());
+        location.setLongitude(fix.longitude());
         location.setTimestamp(LocalDateTime.now());
 
-        return locationRepository.save(location);
+        Location saved = locationRepository.save(location);
+
+        // The filter track and live position only move once the row is committed
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                locationFilterService.accept(driverId, fix);
+                driverPresenceService.recordLocation(driverId, bookingId, fix.latitude(), fix.longitude());
+            }
+        });
+        return saved;
     }
 
     // Get all bookings (Admin dashboard)
+    @Transactional(readOnly = true)
     public List<Booking> getAllBookings() {
         return bookingRepository.findAllByOrderByCreatedAtDesc();
     }
 
+    // Completed bookings whose payment window has passed (Admin follow-up)
+    @Transactional(readOnly = true)
+    public List<Booking> getOverduePayments() {
+        return bookingRepository.findByStatusAndPaymentOverdueTrue(BookingStatus.COMPLETED);
+    }
+
     // Get booking by ID
+    @Transactional(readOnly = true)
     public Booking getBookingById(Long id) {
         return bookingRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Booking not found"));
     }
 
-    // Calculate price based on distance and vehicle type
-    private Double calculatePrice(Double distance, String vehicleType) {
-        double baseRate = switch (vehicleType.toLowerCase()) {
-            case "mini truck" -> 15.0;
-            case "pickup" -> 12.0;
-            case "tempo" -> 20.0;
-            default -> 10.0;
-        };
-
-        return baseRate * distance + 50.0; // Base fare + per km rate
-    }
-
     // Cancel booking
     @Transactional
     public Booking cancelBooking(Long bookingId) {
@@ -165,7 +282,15 @@ public class BookingService {
             throw new RuntimeException("Cannot cancel trip in progress");
         }
 
+        BookingStatus previousStatus = booking.getStatus();
         booking.setStatus(BookingStatus.CANCELLED);
-        return bookingRepository.save(booking);
+        Booking saved = bookingRepository.save(booking);
+        publishChange(saved, previousStatus);
+        return saved;
+    }
+
+    // Notify listeners (analytics, etc.) about a booking change
+    private void publishChange(Booking booking, BookingStatus previousStatus) {
+        eventPublisher.publishEvent(new BookingChangedEvent(booking, previousStatus));
     }
 }
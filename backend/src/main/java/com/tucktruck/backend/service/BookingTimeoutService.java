@@ -0,0 +1,198 @@
+package com.tucktruck.backend.service;
+
+import com.tucktruck.backend.entity.Booking;
+import com.tucktruck.backend.entity.BookingStatus;
+import com.tucktruck.backend.event.BookingChangedEvent;
+import com.tucktruck.backend.repository.BookingRepository;
+import com.tucktruck.backend.util.TimingWheel;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Deadlines for bookings that would otherwise sit forever:
+//   SEARCHING_DRIVER  no driver within the search timeout      -> CANCELLED
+//   DRIVER_ASSIGNED   driver not at the pickup in time (no-show) -> back to SEARCHING_DRIVER
+//   COMPLETED         not paid within the payment window       -> flagged paymentOverdue
+// One timer per booking lives in a hierarchical timing wheel, re-armed on every
+// transition and rebuilt from the database at startup. A single scheduled tick
+// advances the wheel and applies whatever expired in batched transactions.
+@Slf4j
+@Service
+@Lazy(false)
+@RequiredArgsConstructor
+public class BookingTimeoutService {
+
+    private static final List<BookingStatus> TIMED_STATUSES = List.of(
+            BookingStatus.SEARCHING_DRIVER,
+            BookingStatus.DRIVER_ASSIGNED,
+            BookingStatus.COMPLETED);
+
+    // A batch that lost a race with another writer is re-read this often before giving up
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final BookingRepository bookingRepository;
+    private final BookingService bookingService;
+
+    @Value("${tucktruck.timeouts.enabled:true}")
+    private boolean enabled;
+
+    @Value("${tucktruck.timeouts.search-minutes:30}")
+    private long searchMinutes;
+
+    @Value("${tucktruck.timeouts.pickup-no-show-minutes:60}")
+    private long pickupNoShowMinutes;
+
+    @Value("${tucktruck.timeouts.unpaid-hours:24}")
+    private long unpaidHours;
+
+    @Value("${tucktruck.timeouts.tick-ms:1000}")
+    private long tickMs;
+
+    @Value("${tucktruck.timeouts.batch-size:500}")
+    private int batchSize;
+
+    private TimingWheel<Expiry> wheel;
+
+    // Booking -> its armed timer; both guarded by the wheel's monitor
+    private final Map<Long, TimingWheel.Timer<Expiry>> timers = new HashMap<>();
+
+    private final Map<BookingStatus, LongAdder> expired = new ConcurrentHashMap<>();
+
+    private record Expiry(Long bookingId, BookingStatus status) {
+    }
+
+    // Arm a timer for every booking that is already waiting
+    @PostConstruct
+    public void rebuild() {
+        // 2^8 slots per level, 4 levels: about 136 years of 1 s ticks
+        wheel = new TimingWheel<>(tickMs, 8, 4, System.currentTimeMillis());
+        synchronized (wheel) {
+            timers.clear();
+            for (Booking booking : bookingRepository.findByStatusIn(TIMED_STATUSES)) {
+                arm(booking, null);
+            }
+            log.info("Armed {} booking timeouts", wheel.size());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        synchronized (wheel) {
+            wheel.cancel(timers.remove(event.booking().getId()));
+            arm(event.booking(), event.previousStatus());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${tucktruck.timeouts.tick-ms:1000}")
+    public void tick() {
+        if (!enabled) {
+            return;
+        }
+        List<Expiry> due;
+        synchronized (wheel) {
+            due = wheel.advance(System.currentTimeMillis());
+            for (Expiry expiry : due) {
+                timers.remove(expiry.bookingId());
+            }
+        }
+        for (int from = 0; from < due.size(); from += batchSize) {
+            Map<Long, BookingStatus> batch = new LinkedHashMap<>();
+            for (Expiry expiry : due.subList(from, Math.min(due.size(), from + batchSize))) {
+                batch.put(expiry.bookingId(), expiry.status());
+            }
+            for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+                try {
+                    for (Booking booking : bookingService.expireBookings(batch)) {
+                        expired.computeIfAbsent(batch.get(booking.getId()), status -> new LongAdder()).increment();
+                    }
+                    break;
+                } catch (OptimisticLockingFailureException e) {
+                    // A booking was moved on concurrently; the retry re-reads it and skips it
+                    if (attempt == MAX_ATTEMPTS) {
+                        log.warn("Gave up on {} booking timeouts after {} conflicts", batch.size(), attempt, e);
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Could not apply {} booking timeouts", batch.size(), e);
+                    break;
+                }
+            }
+        }
+    }
+
+    public int getArmed() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    // Expired bookings per status they timed out in
+    public Map<BookingStatus, Long> getExpired() {
+        Map<BookingStatus, Long> result = new LinkedHashMap<>();
+        for (BookingStatus status : TIMED_STATUSES) {
+            LongAdder count = expired.get(status);
+            result.put(status, count == null ? 0 : count.sum());
+        }
+        return result;
+    }
+
+    private void arm(Booking booking, BookingStatus previousStatus) {
+        LocalDateTime deadline = deadline(booking, previousStatus);
+        if (deadline != null) {
+            long millis = deadline.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            timers.put(booking.getId(), wheel.schedule(new Expiry(booking.getId(), booking.getStatus()), millis));
+        }
+    }
+
+    private LocalDateTime deadline(Booking booking, BookingStatus previousStatus) {
+        LocalDateTime now = LocalDateTime.now();
+        switch (booking.getStatus()) {
+            case SEARCHING_DRIVER: {
+                // Scheduled bookings wait for their slot; a no-show requeue restarts the clock
+                LocalDateTime from = latest(booking.getCreatedAt(), booking.getScheduledAt(),
+                        booking.getDriverAssignedAt());
+                if (previousStatus == BookingStatus.DRIVER_ASSIGNED) {
+                    from = now;
+                }
+                return (from != null ? from : now).plusMinutes(searchMinutes);
+            }
+            case DRIVER_ASSIGNED: {
+                LocalDateTime from = latest(booking.getDriverAssignedAt(), booking.getScheduledAt(), null);
+                return (from != null ? from : now).plusMinutes(pickupNoShowMinutes);
+            }
+            case COMPLETED: {
+                if (Boolean.TRUE.equals(booking.getPaymentOverdue())) {
+                    return null; // already flagged
+                }
+                LocalDateTime from = booking.getCompletedAt();
+                return (from != null ? from : now).plusHours(unpaidHours);
+            }
+            default:
+                return null;
+        }
+    }
+
+    private static LocalDateTime latest(LocalDateTime a, LocalDateTime b, LocalDateTime c) {
+        LocalDateTime result = a;
+        for (LocalDateTime candidate : new LocalDateTime[] { b, c }) {
+            if (candidate != null && (result == null || candidate.isAfter(result))) {
+                result = candidate;
+            }
+        }
+        return result;
+    }
+}
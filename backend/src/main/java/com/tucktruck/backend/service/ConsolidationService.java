@@ -0,0 +1,374 @@
+package com.tucktruck.backend.service;
+
+import com.tucktruck.backend.dto.ConsolidatedRoute;
+import com.tucktruck.backend.dto.ConsolidationPlan;
+import com.tucktruck.backend.entity.Booking;
+import com.tucktruck.backend.entity.BookingStatus;
+import com.tucktruck.backend.repository.BookingRepository;
+import com.tucktruck.backend.util.CityResolver;
+import com.tucktruck.backend.util.GeoUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+// Shared-load planning. Part loads waiting for a driver (now or scheduled within the
+// horizon) are bucketed by vehicle type and pickup time window. Within a bucket each
+// load, longest first, goes into the route where carrying it adds the least distance,
+// as long as that stays under a fraction of a dedicated trip and fits the vehicle, so
+// routes form along corridors. Each route's stop order is then improved by local
+// search (relocate and 2-opt moves that keep every pickup before its drop and the load
+// within capacity). Buckets and routes are worked on in parallel on a fork-join pool.
+// This only plans; assigning a route to a driver is still done per booking.
+@Service
+@RequiredArgsConstructor
+public class ConsolidationService {
+
+    private static final int MAX_SEARCH_ROUNDS = 200;
+    private static final double EPSILON_KM = 1e-6;
+
+    private final BookingRepository bookingRepository;
+    private final PricingService pricingService;
+
+    @Value("${tucktruck.consolidation.horizon-hours:24}")
+    private int defaultHorizonHours;
+
+    @Value("${tucktruck.consolidation.window-minutes:120}")
+    private int windowMinutes;
+
+    // Extra distance allowed for a load, as a fraction of its dedicated trip
+    @Value("${tucktruck.consolidation.max-detour-fraction:0.5}")
+    private double maxDetourFraction;
+
+    @Value("${tucktruck.consolidation.max-loads-per-route:6}")
+    private int maxLoadsPerRoute;
+
+    @Value("${tucktruck.consolidation.road-factor:1.3}")
+    private double roadFactor;
+
+    @Value("${tucktruck.consolidation.parallelism:0}")
+    private int parallelism;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    void init() {
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    // Payload per vehicle type
+    public static double capacityKg(String vehicleType) {
+        String type = vehicleType == null ? "" : vehicleType.toLowerCase();
+        return switch (type) {
+            case "pickup" -> 1000.0;
+            case "mini truck" -> 1500.0;
+            case "tempo" -> 2500.0;
+            default -> 1000.0;
+        };
+    }
+
+    public ConsolidationPlan plan(Integer horizonHours) {
+        long started = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime horizon = now.plusHours(horizonHours != null ? horizonHours : defaultHorizonHours);
+
+        List<Load> loads = new ArrayList<>();
+        for (Booking booking : bookingRepository.findByStatus(BookingStatus.SEARCHING_DRIVER)) {
+            LocalDateTime pickupAt = booking.getScheduledAt() != null && booking.getScheduledAt().isAfter(now)
+                    ? booking.getScheduledAt() : now;
+            if (isPartLoad(booking) && !pickupAt.isAfter(horizon)) {
+                loads.add(new Load(booking, pickupAt));
+            }
+        }
+
+        long windowSeconds = windowMinutes * 60L;
+        Map<String, List<Load>> buckets = loads.stream().collect(Collectors.groupingBy(load ->
+                load.booking.getVehicleType().toLowerCase() + "|"
+                        + load.pickupAt.toEpochSecond(ZoneOffset.UTC) / windowSeconds));
+
+        List<Route> routes = pool.submit(() -> buckets.values().parallelStream()
+                .flatMap(bucket -> buildRoutes(bucket).stream())
+                .filter(route -> route.loads.size() > 1)
+                .map(this::improve)
+                .toList()).join();
+
+        List<ConsolidatedRoute> result = new ArrayList<>();
+        double distance = 0;
+        double separateDistance = 0;
+        double cost = 0;
+        double separateCost = 0;
+        int consolidated = 0;
+        for (Route route : routes) {
+            ConsolidatedRoute out = toResponse(route);
+            result.add(out);
+            distance += out.getDistanceKm();
+            separateDistance += out.getSeparateDistanceKm();
+            cost += out.getRouteCost();
+            separateCost += out.getSeparateCost();
+            consolidated += route.loads.size();
+        }
+        result.sort(Comparator.comparing(r -> r.getRouteCost() - r.getSeparateCost()));
+        return new ConsolidationPlan(loads.size(), consolidated, result, round(distance), round(separateDistance),
+                round(cost), round(separateCost), System.currentTimeMillis() - started);
+    }
+
+    private boolean isPartLoad(Booking booking) {
+        return booking.getLoadWeightKg() != null && booking.getLoadWeightKg() > 0
+                && booking.getVehicleType() != null
+                && booking.getLoadWeightKg() < capacityKg(booking.getVehicleType())
+                && GeoUtils.isValidCoordinate(booking.getPickupLatitude(), booking.getPickupLongitude())
+                && GeoUtils.isValidCoordinate(booking.getDropLatitude(), booking.getDropLongitude());
+    }
+
+    // Cheapest-insertion grouping of one bucket
+    private List<Route> buildRoutes(List<Load> bucket) {
+        List<Load> sorted = new ArrayList<>(bucket);
+        sorted.sort(Comparator.comparingDouble((Load load) -> load.directKm).reversed());
+        double capacity = capacityKg(sorted.get(0).booking.getVehicleType());
+
+        List<Route> routes = new ArrayList<>();
+        for (Load load : sorted) {
+            Route best = null;
+            int[] bestOrder = null;
+            double bestDelta = maxDetourFraction * load.directKm;
+            for (Route route : routes) {
+                if (route.loads.size() >= maxLoadsPerRoute) {
+                    continue;
+                }
+                double before = route.length(route.order);
+                route.loads.add(load);
+                int[] order = route.bestInsertion(route.loads.size() - 1);
+                double delta = order == null ? Double.MAX_VALUE : route.length(order) - before;
+                route.loads.remove(route.loads.size() - 1);
+                if (delta <= bestDelta) {
+                    best = route;
+                    bestOrder = order;
+                    bestDelta = delta;
+                }
+            }
+            if (best != null) {
+                best.loads.add(load);
+                best.order = bestOrder;
+            } else {
+                Route route = new Route(capacity);
+                route.loads.add(load);
+                route.order = new int[] { 0, 1 };
+                routes.add(route);
+            }
+        }
+        return routes;
+    }
+
+    // First-improvement local search over the stop order
+    private Route improve(Route route) {
+        int[] order = route.order;
+        double best = route.length(order);
+        boolean improved = true;
+        for (int round = 0; improved && round < MAX_SEARCH_ROUNDS; round++) {
+            improved = false;
+
+            // Relocate: move one stop to another position
+            for (int from = 0; from < order.length && !improved; from++) {
+                for (int to = 0; to < order.length && !improved; to++) {
+                    if (from == to) {
+                        continue;
+                    }
+                    int[] candidate = relocate(order, from, to);
+                    double length = route.length(candidate);
+                    if (length < best - EPSILON_KM && route.feasible(candidate)) {
+                        order = candidate;
+                        best = length;
+                        improved = true;
+                    }
+                }
+            }
+
+            // 2-opt: reverse a segment
+            for (int i = 0; i < order.length - 1 && !improved; i++) {
+                for (int j = i + 1; j < order.length && !improved; j++) {
+                    int[] candidate = reverse(order, i, j);
+                    double length = route.length(candidate);
+                    if (length < best - EPSILON_KM && route.feasible(candidate)) {
+                        order = candidate;
+                        best = length;
+                        improved = true;
+                    }
+                }
+            }
+        }
+        route.order = order;
+        return route;
+    }
+
+    private ConsolidatedRoute toResponse(Route route) {
+        String vehicleType = route.loads.get(0).booking.getVehicleType();
+        List<ConsolidatedRoute.Stop> stops = new ArrayList<>();
+        double load = 0;
+        double peak = 0;
+        for (int stop : route.order) {
+            Booking booking = route.loads.get(stop / 2).booking;
+            boolean pickup = stop % 2 == 0;
+            load += pickup ? booking.getLoadWeightKg() : -booking.getLoadWeightKg();
+            peak = Math.max(peak, load);
+            stops.add(new ConsolidatedRoute.Stop(booking.getId(), pickup ? "PICKUP" : "DROP",
+                    pickup ? booking.getPickupLocation() : booking.getDropLocation(),
+                    pickup ? booking.getPickupLatitude() : booking.getDropLatitude(),
+                    pickup ? booking.getPickupLongitude() : booking.getDropLongitude(),
+                    round(load)));
+        }
+
+        double distance = route.length(route.order);
+        double separateDistance = 0;
+        double separateCost = 0;
+        for (Load item : route.loads) {
+            separateDistance += item.directKm;
+            separateCost += pricingService.calculateBasePrice(item.directKm, vehicleType);
+        }
+        String corridor = CityResolver.resolve(stops.get(0).getLocation()) + " -> "
+                + CityResolver.resolve(stops.get(stops.size() - 1).getLocation());
+
+        return new ConsolidatedRoute(vehicleType, corridor,
+                route.loads.stream().map(item -> item.booking.getId()).toList(), stops,
+                round(distance), round(separateDistance),
+                round(pricingService.calculateBasePrice(distance, vehicleType)), round(separateCost),
+                round(peak), round(peak / route.capacity));
+    }
+
+    private static int[] relocate(int[] order, int from, int to) {
+        int[] result = new int[order.length];
+        int stop = order[from];
+        for (int i = 0, j = 0; i < order.length; i++) {
+            if (i == to) {
+                result[i] = stop;
+                continue;
+            }
+            if (j == from) {
+                j++;
+            }
+            result[i] = order[j++];
+        }
+        return result;
+    }
+
+    private static int[] reverse(int[] order, int from, int to) {
+        int[] result = order.clone();
+        for (int i = from, j = to; i < j; i++, j--) {
+            result[i] = order[j];
+            result[j] = order[i];
+        }
+        return result;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    // One part load: its booking, pickup time and dedicated-trip distance
+    private final class Load {
+        private final Booking booking;
+        private final LocalDateTime pickupAt;
+        private final double directKm;
+
+        Load(Booking booking, LocalDateTime pickupAt) {
+            this.booking = booking;
+            this.pickupAt = pickupAt;
+            // Same measure as Route.length, so shared and separate distances compare like for like
+            this.directKm = GeoUtils.haversineKm(booking.getPickupLatitude(), booking.getPickupLongitude(),
+                    booking.getDropLatitude(), booking.getDropLongitude()) * roadFactor;
+        }
+    }
+
+    // Loads on one vehicle; stop 2i is the pickup of loads[i], 2i + 1 its drop
+    private final class Route {
+        private final double capacity;
+        private final List<Load> loads = new ArrayList<>();
+        private int[] order;
+
+        Route(double capacity) {
+            this.capacity = capacity;
+        }
+
+        // Road distance along the stops
+        double length(int[] stops) {
+            double total = 0;
+            for (int i = 1; i < stops.length; i++) {
+                total += GeoUtils.haversineKm(lat(stops[i - 1]), lng(stops[i - 1]), lat(stops[i]), lng(stops[i]));
+            }
+            return total * roadFactor;
+        }
+
+        // Every pickup before its drop and never over capacity
+        boolean feasible(int[] stops) {
+            boolean[] picked = new boolean[loads.size()];
+            double load = 0;
+            for (int stop : stops) {
+                int index = stop / 2;
+                if (stop % 2 == 0) {
+                    picked[index] = true;
+                    load += loads.get(index).booking.getLoadWeightKg();
+                    if (load > capacity) {
+                        return false;
+                    }
+                } else {
+                    if (!picked[index]) {
+                        return false;
+                    }
+                    load -= loads.get(index).booking.getLoadWeightKg();
+                }
+            }
+            return true;
+        }
+
+        // Cheapest feasible positions for the pickup and drop of loads[index] in the current order
+        int[] bestInsertion(int index) {
+            int n = order.length;
+            int[] best = null;
+            double bestLength = Double.MAX_VALUE;
+            for (int p = 0; p <= n; p++) {
+                for (int d = p + 1; d <= n + 1; d++) {
+                    int[] candidate = new int[n + 2];
+                    for (int i = 0, j = 0; i < candidate.length; i++) {
+                        if (i == p) {
+                            candidate[i] = index * 2;
+                        } else if (i == d) {
+                            candidate[i] = index * 2 + 1;
+                        } else {
+                            candidate[i] = order[j++];
+                        }
+                    }
+                    double length = length(candidate);
+                    if (length < bestLength && feasible(candidate)) {
+                        best = candidate;
+                        bestLength = length;
+                    }
+                }
+            }
+            return best;
+        }
+
+        private double lat(int stop) {
+            Booking booking = loads.get(stop / 2).booking;
+            return stop % 2 == 0 ? booking.getPickupLatitude() : booking.getDropLatitude();
+        }
+
+        private double lng(int stop) {
+            Booking booking = loads.get(stop / 2).booking;
+            return stop % 2 == 0 ? booking.getPickupLongitude() : booking.getDropLongitude();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.tucktruck.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tucktruck.backend.cluster.ClusterMessage;
+import com.tucktruck.backend.cluster.ClusterTransport;
+import com.tucktruck.backend.event.DriverLocationEvent;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Last known position of every online driver, fed by location pings.
+// Positions are replicated to the other nodes through the cluster transport;
+// DriverLocationEvent is only published on the node that received the ping.
+@Service
+@Lazy(false)
+@RequiredArgsConstructor
+public class DriverPresenceService {
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final ClusterTransport clusterTransport;
+    private final ObjectMapper objectMapper;
+
+    private final Map<Long, DriverPosition> positions = new ConcurrentHashMap<>();
+
+    public record DriverPosition(Long driverId, double latitude, double longitude, long timestampMillis) {
+    }
+
+    @PostConstruct
+    void init() {
+        clusterTransport.addListener(this::onClusterMessage);
+    }
+
+    // Record a ping and notify listeners (pricing, tracking, ...)
+    public void recordLocation(Long driverId, Long bookingId, double latitude, double longitude) {
+        long now = System.currentTimeMillis();
+        DriverPosition position = new DriverPosition(driverId, latitude, longitude, now);
+        positions.put(driverId, position);
+        eventPublisher.publishEvent(new DriverLocationEvent(driverId, bookingId, latitude, longitude, now));
+        replicate(ClusterMessage.Type.DRIVER_LOCATION, position);
+    }
+
+    public void markOffline(Long driverId) {
+        positions.remove(driverId);
+        replicate(ClusterMessage.Type.DRIVER_OFFLINE, driverId);
+    }
+
+    public DriverPosition getPosition(Long driverId) {
+        return positions.get(driverId);
+    }
+
+    public Collection<DriverPosition> getPositions() {
+        return Collections.unmodifiableCollection(positions.values());
+    }
+
+    private void replicate(ClusterMessage.Type type, Object payload) {
+        try {
+            clusterTransport.broadcast(type, null, objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not encode driver presence", e);
+        }
+    }
+
+    private void onClusterMessage(ClusterMessage message) {
+        if (clusterTransport.nodeId().equals(message.origin())) {
+            return;
+        }
+        try {
+            if (message.type() == ClusterMessage.Type.DRIVER_LOCATION) {
+                DriverPosition position = objectMapper.readValue(message.payload(), DriverPosition.class);
+                positions.merge(position.driverId(), position,
+                        (current, incoming) -> incoming.timestampMillis() >= current.timestampMillis()
+                                ? incoming : current);
+            } else if (message.type() == ClusterMessage.Type.DRIVER_OFFLINE) {
+                positions.remove(objectMapper.readValue(message.payload(), Long.class));
+            }
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not decode driver presence", e);
+        }
+    }
+}
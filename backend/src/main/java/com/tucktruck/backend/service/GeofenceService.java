@@ -0,0 +1,348 @@
+package com.tucktruck.backend.service;
+
+import com.tucktruck.backend.entity.Booking;
+import com.tucktruck.backend.entity.BookingStatus;
+import com.tucktruck.backend.event.BookingChangedEvent;
+import com.tucktruck.backend.event.DriverLocationEvent;
+import com.tucktruck.backend.repository.BookingRepository;
+import com.tucktruck.backend.util.GeoUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+// Automatic arrival detection. Every active booking gets a pickup and a drop circle,
+// registered in a spatial hash (for map queries) and in a small per-driver array.
+// Each ping is tested only against its driver's fences, using primitive state and no
+// allocation. A fence fires after the driver has stayed inside for a few pings and a
+// minimum dwell time (debounce); it only re-arms once the driver has left a wider
+// exit circle (hysteresis), so GPS jitter at the edge never fires twice.
+//
+// DRIVER_ASSIGNED + inside pickup          -> DRIVER_REACHED_PICKUP
+// TRIP_STARTED/IN_TRANSIT + inside drop    -> COMPLETED
+@Slf4j
+@Service
+@Lazy(false)
+@RequiredArgsConstructor
+public class GeofenceService {
+
+    public static final int PICKUP = 0;
+    public static final int DROP = 1;
+
+    private final BookingRepository bookingRepository;
+    private final BookingService bookingService;
+
+    @Value("${tucktruck.geofence.enabled:true}")
+    private boolean enabled;
+
+    @Value("${tucktruck.geofence.pickup-radius-m:150}")
+    private double pickupRadiusM;
+
+    @Value("${tucktruck.geofence.drop-radius-m:200}")
+    private double dropRadiusM;
+
+    @Value("${tucktruck.geofence.exit-factor:1.5}")
+    private double exitFactor;
+
+    @Value("${tucktruck.geofence.min-pings:2}")
+    private int minPings;
+
+    @Value("${tucktruck.geofence.dwell-ms:10000}")
+    private long dwellMs;
+
+    @Value("${tucktruck.geofence.cell-size-deg:0.01}")
+    private double cellSizeDeg;
+
+    // Driver -> that driver's fences
+    private final Map<Long, DriverFences> driverFences = new ConcurrentHashMap<>();
+
+    // Booking -> driver holding its fences, so unregistering never scans all drivers
+    private final Map<Long, Long> bookingDrivers = new ConcurrentHashMap<>();
+
+    // Spatial hash: grid cell -> fences overlapping it
+    private final Map<Long, Set<Fence>> cells = new ConcurrentHashMap<>();
+
+    // Transitions run off the ping thread, outside its transaction
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final LongAdder arrivals = new LongAdder();
+    private final LongAdder completions = new LongAdder();
+
+    // A registered circle
+    public record Fence(Long bookingId, Long driverId, int kind, double latitude, double longitude,
+            double radiusKm) {
+    }
+
+    // Restore fences for the active trips after a restart
+    @PostConstruct
+    public void rebuild() {
+        driverFences.clear();
+        bookingDrivers.clear();
+        cells.clear();
+        for (Booking booking : bookingRepository.findByStatusIn(List.of(
+                BookingStatus.DRIVER_ASSIGNED,
+                BookingStatus.DRIVER_REACHED_PICKUP,
+                BookingStatus.TRIP_STARTED,
+                BookingStatus.IN_TRANSIT))) {
+            register(booking);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        Booking booking = event.booking();
+        switch (event.status()) {
+            case DRIVER_ASSIGNED -> register(booking);
+            case DRIVER_REACHED_PICKUP, TRIP_STARTED, IN_TRANSIT -> {
+                DriverFences fences = booking.getDriver() == null
+                        ? null : driverFences.get(booking.getDriver().getId());
+                if (fences == null || !fences.bookingId.equals(booking.getId())) {
+                    register(booking);
+                } else {
+                    synchronized (fences) {
+                        fences.onStatus(event.status());
+                    }
+                }
+            }
+            default -> unregister(booking.getId());
+        }
+    }
+
+    // Hot path: runs for every ping, allocation-free unless a fence fires
+    @EventListener
+    public void onDriverLocation(DriverLocationEvent event) {
+        if (!enabled) {
+            return;
+        }
+        DriverFences fences = driverFences.get(event.driverId());
+        if (fences == null) {
+            return;
+        }
+        BookingStatus fire = null;
+        synchronized (fences) {
+            for (int kind = PICKUP; kind <= DROP; kind++) {
+                if (fences.check(kind, event.latitude(), event.longitude(), event.timestampMillis())) {
+                    fire = kind == PICKUP ? BookingStatus.DRIVER_REACHED_PICKUP : BookingStatus.COMPLETED;
+                }
+            }
+        }
+        if (fire != null) {
+            transition(fences, fire);
+        }
+    }
+
+    // Fences whose grid cell contains the point (admin map)
+    public List<Fence> fencesNear(double latitude, double longitude) {
+        Set<Fence> fences = cells.get(GeoUtils.cellKey(latitude, longitude, cellSizeDeg));
+        return fences == null ? List.of() : new ArrayList<>(fences);
+    }
+
+    public int getActiveDrivers() {
+        return driverFences.size();
+    }
+
+    public long getArrivals() {
+        return arrivals.sum();
+    }
+
+    public long getCompletions() {
+        return completions.sum();
+    }
+
+    private void transition(DriverFences fences, BookingStatus status) {
+        Long bookingId = fences.bookingId;
+        executor.submit(() -> {
+            try {
+                // The driver may have moved the booking on by hand in the meantime
+                List<BookingStatus> expected = status == BookingStatus.COMPLETED
+                        ? List.of(BookingStatus.TRIP_STARTED, BookingStatus.IN_TRANSIT)
+                        : List.of(BookingStatus.DRIVER_ASSIGNED);
+                if (bookingService.advanceBookingStatus(bookingId, expected, status)) {
+                    (status == BookingStatus.COMPLETED ? completions : arrivals).increment();
+                }
+            } catch (OptimisticLockingFailureException e) {
+                // Someone else wrote the booking first; the next ping re-checks against its new status
+                log.debug("Geofence transition {} lost a race for booking {}", status, bookingId);
+                synchronized (fences) {
+                    fences.fired[status == BookingStatus.COMPLETED ? DROP : PICKUP] = false;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Geofence transition {} failed for booking {}", status, bookingId, e);
+                synchronized (fences) {
+                    fences.fired[status == BookingStatus.COMPLETED ? DROP : PICKUP] = false;
+                }
+            }
+        });
+    }
+
+    private void register(Booking booking) {
+        if (booking.getDriver() == null) {
+            return;
+        }
+        unregister(booking.getId());
+        Long driverId = booking.getDriver().getId();
+        DriverFences fences = new DriverFences(booking.getId(), booking.getStatus());
+        if (GeoUtils.isValidCoordinate(booking.getPickupLatitude(), booking.getPickupLongitude())) {
+            fences.set(PICKUP, new Fence(booking.getId(), driverId, PICKUP, booking.getPickupLatitude(),
+                    booking.getPickupLongitude(), pickupRadiusM / 1000));
+        }
+        if (GeoUtils.isValidCoordinate(booking.getDropLatitude(), booking.getDropLongitude())) {
+            fences.set(DROP, new Fence(booking.getId(), driverId, DROP, booking.getDropLatitude(),
+                    booking.getDropLongitude(), dropRadiusM / 1000));
+        }
+
+        DriverFences previous = driverFences.put(driverId, fences);
+        bookingDrivers.put(booking.getId(), driverId);
+        if (previous != null) {
+            bookingDrivers.remove(previous.bookingId, driverId);
+            removeFromCells(previous);
+        }
+        for (Fence fence : fences.fences) {
+            if (fence != null) {
+                for (long cell : cellsFor(fence)) {
+                    cells.computeIfAbsent(cell, key -> ConcurrentHashMap.newKeySet()).add(fence);
+                }
+            }
+        }
+    }
+
+    private void unregister(Long bookingId) {
+        Long driverId = bookingDrivers.remove(bookingId);
+        if (driverId == null) {
+            return;
+        }
+        driverFences.computeIfPresent(driverId, (id, fences) -> {
+            if (!fences.bookingId.equals(bookingId)) {
+                return fences;
+            }
+            removeFromCells(fences);
+            return null;
+        });
+    }
+
+    private void removeFromCells(DriverFences fences) {
+        for (Fence fence : fences.fences) {
+            if (fence == null) {
+                continue;
+            }
+            for (long cell : cellsFor(fence)) {
+                cells.computeIfPresent(cell, (key, set) -> {
+                    set.remove(fence);
+                    return set.isEmpty() ? null : set;
+                });
+            }
+        }
+    }
+
+    // Grid cells overlapped by the fence's bounding box
+    private long[] cellsFor(Fence fence) {
+        double radiusDeg = fence.radiusKm() * exitFactor / 111.0;
+        double lngScale = Math.max(0.1, Math.cos(Math.toRadians(fence.latitude())));
+        long minLat = (long) Math.floor((fence.latitude() - radiusDeg) / cellSizeDeg);
+        long maxLat = (long) Math.floor((fence.latitude() + radiusDeg) / cellSizeDeg);
+        long minLng = (long) Math.floor((fence.longitude() - radiusDeg / lngScale) / cellSizeDeg);
+        long maxLng = (long) Math.floor((fence.longitude() + radiusDeg / lngScale) / cellSizeDeg);
+        long[] keys = new long[(int) ((maxLat - minLat + 1) * (maxLng - minLng + 1))];
+        int i = 0;
+        for (long lat = minLat; lat <= maxLat; lat++) {
+            for (long lng = minLng; lng <= maxLng; lng++) {
+                keys[i++] = GeoUtils.cellKey(lat, lng);
+            }
+        }
+        return keys;
+    }
+
+    // Fences and detection state of one driver's active booking; guarded by its monitor
+    private final class DriverFences {
+        private final Long bookingId;
+        private BookingStatus status;
+        private final Fence[] fences = new Fence[2];
+        private final double[] latitude = new double[2];
+        private final double[] longitude = new double[2];
+        private final double[] enterKm = new double[2];
+        private final double[] exitKm = new double[2];
+        private final int[] insidePings = new int[2];
+        private final long[] insideSince = new long[2];
+        private final boolean[] armed = new boolean[2];
+        private final boolean[] fired = new boolean[2];
+
+        DriverFences(Long bookingId, BookingStatus status) {
+            this.bookingId = bookingId;
+            this.status = status;
+        }
+
+        void set(int kind, Fence fence) {
+            fences[kind] = fence;
+            latitude[kind] = fence.latitude();
+            longitude[kind] = fence.longitude();
+            enterKm[kind] = fence.radiusKm();
+            exitKm[kind] = fence.radiusKm() * exitFactor;
+            // A driver may be assigned while already at the pickup; the drop only arms
+            // once the driver has been outside it, so a short trip cannot complete at start
+            armed[kind] = kind == PICKUP;
+        }
+
+        void onStatus(BookingStatus newStatus) {
+            status = newStatus;
+            insidePings[PICKUP] = 0;
+            insidePings[DROP] = 0;
+            // Drop right next to the pickup: the driver has to leave it after the trip starts
+            if (newStatus == BookingStatus.TRIP_STARTED && fences[PICKUP] != null && fences[DROP] != null
+                    && GeoUtils.haversineKm(latitude[PICKUP], longitude[PICKUP], latitude[DROP], longitude[DROP])
+                            <= exitKm[DROP]) {
+                armed[DROP] = false;
+            }
+        }
+
+        // True when this ping confirms arrival and the fence should fire
+        boolean check(int kind, double lat, double lng, long now) {
+            if (fences[kind] == null || fired[kind]) {
+                return false;
+            }
+            double distance = GeoUtils.haversineKm(latitude[kind], longitude[kind], lat, lng);
+            if (distance > exitKm[kind]) {
+                armed[kind] = true;
+                insidePings[kind] = 0;
+                return false;
+            }
+            if (distance > enterKm[kind] || !armed[kind]) {
+                // Between the circles: keep whatever streak is running
+                return false;
+            }
+            if (insidePings[kind]++ == 0) {
+                insideSince[kind] = now;
+            }
+            if (!live(kind) || insidePings[kind] < minPings || now - insideSince[kind] < dwellMs) {
+                return false;
+            }
+            fired[kind] = true;
+            return true;
+        }
+
+        private boolean live(int kind) {
+            return kind == PICKUP
+                    ? status == BookingStatus.DRIVER_ASSIGNED
+                    : status == BookingStatus.TRIP_STARTED || status == BookingStatus.IN_TRANSIT;
+        }
+    }
+}
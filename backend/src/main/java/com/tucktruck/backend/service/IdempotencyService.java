@@ -0,0 +1,207 @@
+package com.tucktruck.backend.service;
+
+import com.tucktruck.backend.datasource.ReplicaRoutingDataSource;
+import com.tucktruck.backend.entity.Booking;
+import com.tucktruck.backend.entity.IdempotencyRecord;
+import com.tucktruck.backend.repository.IdempotencyRecordRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+// Deduplicates booking creation when a client retries with the same Idempotency-Key.
+// Recent keys live in a bounded LRU map; the idempotency_keys table is the source of
+// truth across restarts and instances. The key row is inserted once, already pointing at
+// the booking, in the booking's transaction, so a crash never leaves a key without its
+// booking. A replay must carry the same request as the original (compared by hash).
+@Service
+@Lazy(false)
+@RequiredArgsConstructor
+public class IdempotencyService {
+
+    private static final int LOCK_STRIPES = 64;
+    private static final int MAX_KEY_LENGTH = 128;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final BookingService bookingService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${tucktruck.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${tucktruck.idempotency.cache-size:10000}")
+    private int cacheSize;
+
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private Map<String, CachedKey> recentKeys;
+
+    public record Result(Booking booking, boolean replayed) {
+    }
+
+    // Thrown when another request with the same key has not finished yet
+    public static class RequestInProgressException extends RuntimeException {
+        public RequestInProgressException(String message) {
+            super(message);
+        }
+    }
+
+    // Thrown when a key comes back with a different request body
+    public static class KeyReusedException extends RuntimeException {
+        public KeyReusedException(String message) {
+            super(message);
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        recentKeys = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedKey> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    // Create a booking, or return the booking already created for this key.
+    // Key lookups and replays read the primary: the booking may be too new for the replica.
+    public Result createBooking(String idempotencyKey, Booking booking) {
+        return ReplicaRoutingDataSource.onPrimary(() -> createOnPrimary(idempotencyKey, booking));
+    }
+
+    private Result createOnPrimary(String idempotencyKey, Booking booking) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return new Result(bookingService.createBooking(booking), false);
+        }
+
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new RuntimeException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String scopedKey = scopeKey(idempotencyKey, booking);
+        // Before createBooking fills in status, price and distance
+        String requestHash = requestHash(booking);
+        CachedKey cached = lookupCached(scopedKey);
+        if (cached != null) {
+            return replay(cached, requestHash);
+        }
+
+        synchronized (lockFor(scopedKey)) {
+            cached = lookupCached(scopedKey);
+            if (cached != null) {
+                return replay(cached, requestHash);
+            }
+
+            Optional<IdempotencyRecord> existing = idempotencyRecordRepository.findByIdempotencyKey(scopedKey);
+            if (existing.isPresent() && !existing.get().getExpiresAt().isBefore(LocalDateTime.now())) {
+                return replay(remember(scopedKey, existing.get()), requestHash);
+            }
+
+            // Create the booking and insert the key pointing at it in one transaction. A concurrent
+            // request with the same key on another instance waits on the unique index until this
+            // one commits, then fails it and replays.
+            IdempotencyRecord stale = existing.orElse(null);
+            Booking created;
+            IdempotencyRecord record = new IdempotencyRecord();
+            try {
+                created = transactionTemplate.execute(status -> {
+                    if (stale != null) {
+                        idempotencyRecordRepository.delete(stale);
+                    }
+                    Booking saved = bookingService.createBooking(booking);
+                    record.setIdempotencyKey(scopedKey);
+                    record.setBookingId(saved.getId());
+                    record.setRequestHash(requestHash);
+                    record.setCreatedAt(LocalDateTime.now());
+                    record.setExpiresAt(record.getCreatedAt().plusHours(ttlHours));
+                    idempotencyRecordRepository.saveAndFlush(record);
+                    return saved;
+                });
+            } catch (DataIntegrityViolationException e) {
+                IdempotencyRecord winner = idempotencyRecordRepository.findByIdempotencyKey(scopedKey)
+                        .orElseThrow(() -> new RequestInProgressException(
+                                "A request with this Idempotency-Key is still in progress"));
+                return replay(remember(scopedKey, winner), requestHash);
+            }
+
+            remember(scopedKey, record);
+            return new Result(created, false);
+        }
+    }
+
+    // Remove expired keys from the database
+    @Scheduled(fixedDelayString = "${tucktruck.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        idempotencyRecordRepository.deleteExpired(LocalDateTime.now());
+    }
+
+    private CachedKey lookupCached(String scopedKey) {
+        CachedKey cached = recentKeys.get(scopedKey);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.expiresAt().isBefore(LocalDateTime.now())) {
+            recentKeys.remove(scopedKey);
+            return null;
+        }
+        return cached;
+    }
+
+    private CachedKey remember(String scopedKey, IdempotencyRecord record) {
+        CachedKey cached = new CachedKey(record.getBookingId(), record.getExpiresAt(), record.getRequestHash());
+        recentKeys.put(scopedKey, cached);
+        return cached;
+    }
+
+    private Result replay(CachedKey cached, String requestHash) {
+        if (!requestHash.equals(cached.requestHash())) {
+            throw new KeyReusedException("Idempotency-Key was already used for a different booking request");
+        }
+        return new Result(bookingService.getBookingById(cached.bookingId()), true);
+    }
+
+    private Object lockFor(String scopedKey) {
+        return locks[(scopedKey.hashCode() & 0x7fffffff) % LOCK_STRIPES];
+    }
+
+    // Keys are only unique per customer
+    private static String scopeKey(String idempotencyKey, Booking booking) {
+        Long customerId = booking.getCustomer() != null ? booking.getCustomer().getId() : null;
+        return customerId + ":" + idempotencyKey.trim();
+    }
+
+    // What the customer asked for; retries of one submission send the same fields
+    static String requestHash(Booking booking) {
+        String request = String.join("|", String.valueOf(booking.getPickupLocation()),
+                String.valueOf(booking.getPickupLatitude()), String.valueOf(booking.getPickupLongitude()),
+                String.valueOf(booking.getDropLocation()), String.valueOf(booking.getDropLatitude()),
+                String.valueOf(booking.getDropLongitude()), String.valueOf(booking.getVehicleType()),
+                String.valueOf(booking.getLoadWeightKg()), String.valueOf(booking.getScheduledAt()),
+                String.valueOf(booking.getPaymentMethod()), String.valueOf(booking.getCustomerNotes()));
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(request.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 unavailable", e);
+        }
+    }
+
+    private record CachedKey(Long bookingId, LocalDateTime expiresAt, String requestHash) {
+    }
+}
@@ -0,0 +1,291 @@
+package com.tucktruck.backend.service;
+
+import com.tucktruck.backend.dto.DriverEarnings;
+import com.tucktruck.backend.entity.Booking;
+import com.tucktruck.backend.entity.BookingStatus;
+import com.tucktruck.backend.entity.LedgerEntry;
+import com.tucktruck.backend.entity.LedgerEntryType;
+import com.tucktruck.backend.entity.SettlementBatch;
+import com.tucktruck.backend.event.BookingChangedEvent;
+import com.tucktruck.backend.repository.LedgerEntryRepository;
+import com.tucktruck.backend.repository.SettlementBatchRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Append-only driver earnings journal.
+//   COMPLETED  EARNING           +fare * (1 - commission rate)
+//   PAID       CASH_COLLECTED    -fare (cash: the driver already holds it)
+//              PAYMENT_RECEIVED   0    (online: the platform holds it)
+// Entries are written in the transaction that moves the booking, so the journal never
+// disagrees with the booking status. A daily settlement walks the new entries once in id
+// order and books one SETTLEMENT entry per driver that brings the balance back to zero, so
+// a driver's balance is just the sum of the entries after the last settled one; it is read
+// from the journal, which every node shares.
+@Slf4j
+@Service
+@Lazy(false)
+@RequiredArgsConstructor
+public class LedgerService {
+
+    private static final int SETTLEMENT_PAGE = 1000;
+
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final SettlementBatchRepository settlementBatchRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${tucktruck.ledger.commission-rate:0.15}")
+    private double commissionRate;
+
+    // How long after midnight a day may be settled; longer than any booking transaction
+    @Value("${tucktruck.ledger.settlement-lag-minutes:10}")
+    private long settlementLagMinutes;
+
+    // Thrown when the day, or a later one, already has a batch
+    public static class AlreadySettledException extends RuntimeException {
+        public AlreadySettledException(String message) {
+            super(message);
+        }
+    }
+
+    // Runs inside the booking's transaction; a booking that reaches PAID without passing
+    // COMPLETED gets its EARNING entry here too
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        // The node that committed the change wrote its entries
+        if (event.remote()) {
+            return;
+        }
+        if (!event.enteredStatus(BookingStatus.COMPLETED) && !event.enteredStatus(BookingStatus.PAID)) {
+            return;
+        }
+        Booking booking = event.booking();
+        if (booking.getDriver() == null) {
+            return;
+        }
+
+        List<LedgerEntry> entries = new ArrayList<>();
+        double fare = AnalyticsService.fare(booking);
+        if (!ledgerEntryRepository.existsByBookingIdAndEntryType(booking.getId(), LedgerEntryType.EARNING)) {
+            double commission = round(fare * commissionRate);
+            entries.add(entry(booking, LedgerEntryType.EARNING, round(fare - commission), fare, commission));
+        }
+        if (event.status() == BookingStatus.PAID) {
+            LedgerEntryType type = isCash(booking.getPaymentMethod())
+                    ? LedgerEntryType.CASH_COLLECTED : LedgerEntryType.PAYMENT_RECEIVED;
+            if (!ledgerEntryRepository.existsByBookingIdAndEntryType(booking.getId(), type)) {
+                entries.add(entry(booking, type, type == LedgerEntryType.CASH_COLLECTED ? -fare : 0.0, fare, null));
+            }
+        }
+        if (entries.isEmpty()) {
+            return;
+        }
+        ledgerEntryRepository.saveAll(entries);
+    }
+
+    // Settle the previous day shortly after midnight
+    @Scheduled(cron = "${tucktruck.ledger.settlement-cron:0 30 0 * * *}")
+    public void settleYesterday() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        try {
+            settle(yesterday);
+        } catch (AlreadySettledException | DataIntegrityViolationException e) {
+            // Another node settled it first
+            log.info("Settlement for {} already done elsewhere", yesterday);
+        } catch (RuntimeException e) {
+            log.warn("Settlement for {} failed", yesterday, e);
+        }
+    }
+
+    // Net every unsettled entry created before the end of businessDate, in one pass over the
+    // journal. Ids come from IDENTITY, so a lower id can commit after a higher one; the pass
+    // only starts once the day has been over for settlementLagMinutes, by when every
+    // transaction that stamped an entry before the cutoff has committed or rolled back.
+    public SettlementBatch settle(LocalDate businessDate) {
+        LocalDateTime cutoff = businessDate.plusDays(1).atStartOfDay();
+        if (LocalDateTime.now().isBefore(cutoff.plusMinutes(settlementLagMinutes))) {
+            throw new RuntimeException("Only days that ended at least " + settlementLagMinutes
+                    + " minutes ago can be settled");
+        }
+        Map<Long, Double> net = new LinkedHashMap<>();
+
+        SettlementBatch batch = transactionTemplate.execute(status -> {
+            SettlementBatch last = settlementBatchRepository.findFirstByOrderByIdDesc().orElse(null);
+            if (last != null && !businessDate.isAfter(last.getBusinessDate())) {
+                throw new AlreadySettledException("Already settled up to " + last.getBusinessDate());
+            }
+            long fromId = last != null ? last.getToEntryId() : 0L;
+            long toId = fromId;
+            int entryCount = 0;
+
+            // Id order is creation order; the pass stops at the first entry of the next day
+            scan:
+            while (true) {
+                List<LedgerEntry> page = ledgerEntryRepository.findByIdGreaterThanOrderByIdAsc(toId,
+                        Limit.of(SETTLEMENT_PAGE));
+                for (LedgerEntry entry : page) {
+                    if (!entry.getCreatedAt().isBefore(cutoff)) {
+                        break scan;
+                    }
+                    toId = entry.getId();
+                    entryCount++;
+                    if (entry.getEntryType() != LedgerEntryType.SETTLEMENT) {
+                        net.merge(entry.getDriverId(), entry.getAmount(), Double::sum);
+                    }
+                }
+                if (page.size() < SETTLEMENT_PAGE) {
+                    break;
+                }
+            }
+            net.values().removeIf(amount -> round(amount) == 0.0);
+
+            double payout = 0;
+            double collected = 0;
+            for (double amount : net.values()) {
+                if (amount > 0) {
+                    payout += amount;
+                } else {
+                    collected -= amount;
+                }
+            }
+            SettlementBatch created = new SettlementBatch();
+            created.setBusinessDate(businessDate);
+            created.setFromEntryId(fromId);
+            created.setToEntryId(toId);
+            created.setEntryCount(entryCount);
+            created.setDriverCount(net.size());
+            created.setTotalPayout(round(payout));
+            created.setTotalCollected(round(collected));
+            created.setCreatedAt(LocalDateTime.now());
+            // Unique per day: a second node settling the same day fails here, before writing entries
+            created = settlementBatchRepository.saveAndFlush(created);
+
+            List<LedgerEntry> settlements = new ArrayList<>();
+            for (Map.Entry<Long, Double> driver : net.entrySet()) {
+                LedgerEntry entry = new LedgerEntry();
+                entry.setDriverId(driver.getKey());
+                entry.setEntryType(LedgerEntryType.SETTLEMENT);
+                entry.setAmount(round(-driver.getValue()));
+                entry.setSettlementBatchId(created.getId());
+                entry.setCreatedAt(LocalDateTime.now());
+                settlements.add(entry);
+            }
+            ledgerEntryRepository.saveAll(settlements);
+            return created;
+        });
+
+        log.info("Settled {}: {} entries, {} drivers, payout {}, collected {}", businessDate,
+                batch.getEntryCount(), batch.getDriverCount(), batch.getTotalPayout(), batch.getTotalCollected());
+        return batch;
+    }
+
+    // Unsettled balance, positive when the platform owes the driver
+    public double getBalance(Long driverId) {
+        Double balance = ledgerEntryRepository.sumBalanceAfter(driverId, lastSettledEntryId(),
+                LedgerEntryType.SETTLEMENT);
+        return balance == null ? 0.0 : round(balance);
+    }
+
+    public Map<Long, Double> getBalances() {
+        Map<Long, Double> result = new HashMap<>();
+        for (LedgerEntryRepository.DriverBalance balance
+                : ledgerEntryRepository.sumBalancesAfter(lastSettledEntryId(), LedgerEntryType.SETTLEMENT)) {
+            double amount = balance.getBalance() == null ? 0.0 : round(balance.getBalance());
+            if (amount != 0.0) {
+                result.put(balance.getDriverId(), amount);
+            }
+        }
+        return result;
+    }
+
+    public List<LedgerEntry> getEntries(Long driverId, LocalDateTime from, LocalDateTime to) {
+        return ledgerEntryRepository.findByDriverInRange(driverId, from, to);
+    }
+
+    // Earnings summary over [from, to); touches only the driver's entries in the range
+    public DriverEarnings getEarnings(Long driverId, LocalDateTime from, LocalDateTime to) {
+        DriverEarnings earnings = new DriverEarnings();
+        earnings.setDriverId(driverId);
+        earnings.setFrom(from);
+        earnings.setTo(to);
+        for (LedgerEntry entry : getEntries(driverId, from, to)) {
+            switch (entry.getEntryType()) {
+                case EARNING -> {
+                    earnings.setTrips(earnings.getTrips() + 1);
+                    earnings.setGrossFare(earnings.getGrossFare() + entry.getGrossFare());
+                    earnings.setCommission(earnings.getCommission() + entry.getCommission());
+                    earnings.setEarnings(earnings.getEarnings() + entry.getAmount());
+                }
+                case CASH_COLLECTED -> earnings.setCashCollected(earnings.getCashCollected() - entry.getAmount());
+                case SETTLEMENT -> earnings.setSettled(earnings.getSettled() - entry.getAmount());
+                default -> {
+                }
+            }
+        }
+        earnings.setGrossFare(round(earnings.getGrossFare()));
+        earnings.setCommission(round(earnings.getCommission()));
+        earnings.setEarnings(round(earnings.getEarnings()));
+        earnings.setCashCollected(round(earnings.getCashCollected()));
+        earnings.setSettled(round(earnings.getSettled()));
+        earnings.setBalance(getBalance(driverId));
+        return earnings;
+    }
+
+    public List<SettlementBatch> getBatches(LocalDate from, LocalDate to) {
+        return settlementBatchRepository.findByBusinessDateBetweenOrderByBusinessDateAsc(from, to);
+    }
+
+    // Per-driver payout lines of one batch
+    public List<LedgerEntry> getBatchEntries(Long batchId) {
+        return ledgerEntryRepository.findBySettlementBatchIdOrderByIdAsc(batchId);
+    }
+
+    // Every entry up to this id is covered by a settlement
+    private long lastSettledEntryId() {
+        return settlementBatchRepository.findFirstByOrderByIdDesc().map(SettlementBatch::getToEntryId).orElse(0L);
+    }
+
+    private static LedgerEntry entry(Booking booking, LedgerEntryType type, double amount, double fare,
+            Double commission) {
+        LedgerEntry entry = new LedgerEntry();
+        entry.setDriverId(booking.getDriver().getId());
+        entry.setBookingId(booking.getId());
+        entry.setEntryType(type);
+        entry.setAmount(round(amount));
+        entry.setGrossFare(round(fare));
+        entry.setCommission(commission);
+        entry.setCreatedAt(LocalDateTime.now());
+        return entry;
+    }
+
+    // Cash on delivery unless the customer picked an online method
+    private static boolean isCash(String paymentMethod) {
+        if (paymentMethod == null || paymentMethod.isBlank()) {
+            return true;
+        }
+        String method = paymentMethod.trim().toLowerCase(Locale.ROOT);
+        return method.equals("cash") || method.equals("cod");
+    }
+
+    // Money is kept to the paisa
+    private static double round(double amount) {
+        return Math.round(amount * 100) / 100.0;
+    }
+}
@@ -0,0 +1,290 @@
+package com.tucktruck.backend.service;
+
+import com.tucktruck.backend.util.GeoUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Validation and noise filtering for GPS pings, in front of persistence.
+// Per driver it keeps a small constant-velocity Kalman filter (position and velocity on
+// each axis, in metres around the latest estimate) and the last stored point:
+//   INVALID    missing, out-of-range or 0,0 coordinates
+//   OUTLIER    implies an impossible speed from the last good fix (teleport jump);
+//              a run of them means the driver really moved, so the filter resets
+//   DUPLICATE  within the dead-band of the last stored point and not yet due for
+//              a keep-alive row; still counts as a live position, but is not stored
+//   ACCEPTED   stored, at the smoothed position
+// Tracking velocity keeps a moving truck's estimate on top of it instead of trailing
+// behind; only the noise is smoothed away. filter() does not change the track: it returns
+// the next state in the Fix, and the caller hands it back to accept() once the ping has
+// been taken (for stored pings, after the location row commits).
+// State lives in lock-striped maps of primitive-only tracks.
+@Service
+public class LocationFilterService {
+
+    private static final int STRIPES = 64;
+
+    // GPS measurement noise without a reported accuracy (metres)
+    private static final double MEASUREMENT_NOISE_M = 15.0;
+
+    // Velocity uncertainty of a new track (m/s); the first few pings pin it down
+    private static final double INITIAL_SPEED_NOISE_MPS = 15.0;
+
+    private static final double METRES_PER_DEGREE = 111_320.0;
+
+    public enum Decision {
+        ACCEPTED, DUPLICATE, OUTLIER, INVALID
+    }
+
+    // Filter output: what to do with the ping, the smoothed position to use and the track
+    // state to keep if the ping is taken (null for INVALID)
+    public record Fix(Decision decision, double latitude, double longitude, Track next) {
+
+        public boolean store() {
+            return decision == Decision.ACCEPTED;
+        }
+
+        public boolean live() {
+            return decision == Decision.ACCEPTED || decision == Decision.DUPLICATE;
+        }
+    }
+
+    @Value("${tucktruck.location-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${tucktruck.location-filter.max-speed-kmh:150}")
+    private double maxSpeedKmh;
+
+    // Jumps below this are treated as GPS noise whatever the implied speed
+    @Value("${tucktruck.location-filter.jump-tolerance-m:50}")
+    private double jumpToleranceM;
+
+    @Value("${tucktruck.location-filter.outliers-before-reset:3}")
+    private int outliersBeforeReset;
+
+    @Value("${tucktruck.location-filter.dead-band-m:15}")
+    private double deadBandM;
+
+    // A stationary driver still gets a stored row this often
+    @Value("${tucktruck.location-filter.keep-alive-ms:60000}")
+    private long keepAliveMs;
+
+    // Unmodelled acceleration of a vehicle (m/s^2): braking, turns, traffic
+    @Value("${tucktruck.location-filter.acceleration-noise-mps2:1.0}")
+    private double accelerationNoise;
+
+    // Gap after which the old track is forgotten
+    @Value("${tucktruck.location-filter.stale-ms:600000}")
+    private long staleMs;
+
+    @SuppressWarnings("unchecked")
+    private final Map<Long, Track>[] stripes = new Map[STRIPES];
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder[] decisions = new LongAdder[Decision.values().length];
+
+    public LocationFilterService() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new HashMap<>();
+        }
+        for (int i = 0; i < decisions.length; i++) {
+            decisions[i] = new LongAdder();
+        }
+    }
+
+    public Fix filter(Long driverId, Double latitude, Double longitude, long timestampMillis) {
+        received.increment();
+        Fix fix = classify(driverId, latitude, longitude, timestampMillis);
+        decisions[fix.decision().ordinal()].increment();
+        return fix;
+    }
+
+    // Keep the track state of a ping that was taken. A ping older than the current track
+    // (a slower request overtaken by a newer one) is dropped.
+    public void accept(Long driverId, Fix fix) {
+        if (fix.next() == null || !enabled) {
+            return;
+        }
+        Map<Long, Track> stripe = stripe(driverId);
+        synchronized (stripe) {
+            Track current = stripe.get(driverId);
+            if (current == null || fix.next().updatedAt >= current.updatedAt) {
+                stripe.put(driverId, fix.next());
+            }
+        }
+    }
+
+    // Forget a driver's track (e.g. going offline)
+    public void reset(Long driverId) {
+        Map<Long, Track> stripe = stripe(driverId);
+        synchronized (stripe) {
+            stripe.remove(driverId);
+        }
+    }
+
+    // Pings seen and the share of each decision
+    public Map<String, Object> getStats() {
+        long total = received.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("received", total);
+        for (Decision decision : Decision.values()) {
+            stats.put(decision.name().toLowerCase(), decisions[decision.ordinal()].sum());
+        }
+        long accepted = decisions[Decision.ACCEPTED.ordinal()].sum();
+        stats.put("acceptedRatio", total == 0 ? 0.0 : (double) accepted / total);
+        stats.put("droppedRatio", total == 0 ? 0.0 : (double) (total - accepted) / total);
+        return stats;
+    }
+
+    private Fix classify(Long driverId, Double latitude, Double longitude, long now) {
+        if (!GeoUtils.isValidCoordinate(latitude, longitude) || latitude.isNaN() || longitude.isNaN()) {
+            return new Fix(Decision.INVALID, Double.NaN, Double.NaN, null);
+        }
+        if (!enabled) {
+            return new Fix(Decision.ACCEPTED, latitude, longitude, null);
+        }
+
+        Track current;
+        Map<Long, Track> stripe = stripe(driverId);
+        synchronized (stripe) {
+            current = stripe.get(driverId);
+        }
+        if (current == null || now - current.updatedAt > staleMs) {
+            return new Fix(Decision.ACCEPTED, latitude, longitude, Track.start(latitude, longitude, now));
+        }
+        // Work on a copy; the live track only changes in accept()
+        Track track = current.copy();
+
+        // Speed gate against the current estimate
+        double jumpKm = GeoUtils.haversineKm(track.latitude(), track.longitude(), latitude, longitude);
+        double hours = Math.max(1, now - track.updatedAt) / 3_600_000.0;
+        if (jumpKm * 1000 > jumpToleranceM && jumpKm / hours > maxSpeedKmh) {
+            if (++track.outliers < outliersBeforeReset) {
+                return new Fix(Decision.OUTLIER, track.latitude(), track.longitude(), track);
+            }
+            // Consistently "elsewhere": the last good fix was the bad one
+            return new Fix(Decision.ACCEPTED, latitude, longitude, Track.start(latitude, longitude, now));
+        }
+        track.outliers = 0;
+
+        // Kalman step per axis: predict along the velocity, then blend in the measurement
+        double seconds = Math.max(0, now - track.updatedAt) / 1000.0;
+        double r = MEASUREMENT_NOISE_M * MEASUREMENT_NOISE_M;
+        double q = accelerationNoise * accelerationNoise;
+        step(track.north, (latitude - track.originLatitude) * METRES_PER_DEGREE, seconds, q, r);
+        step(track.east, (longitude - track.originLongitude) * track.metresPerDegreeLng, seconds, q, r);
+        track.updatedAt = now;
+        track.recentre();
+        double smoothedLat = track.originLatitude;
+        double smoothedLng = track.originLongitude;
+
+        // Dead-band against the last stored point
+        double movedM = GeoUtils.haversineKm(track.storedLatitude, track.storedLongitude,
+                smoothedLat, smoothedLng) * 1000;
+        if (movedM < deadBandM && now - track.storedAt < keepAliveMs) {
+            return new Fix(Decision.DUPLICATE, smoothedLat, smoothedLng, track);
+        }
+        track.storedLatitude = smoothedLat;
+        track.storedLongitude = smoothedLng;
+        track.storedAt = now;
+        return new Fix(Decision.ACCEPTED, smoothedLat, smoothedLng, track);
+    }
+
+    // One axis of a constant-velocity Kalman filter; axis = {position, velocity, P00, P01, P11}
+    // with white-noise acceleration q (m^2/s^4) and measurement variance r (m^2)
+    static void step(double[] axis, double measured, double dt, double q, double r) {
+        double p00 = axis[2];
+        double p01 = axis[3];
+        double p11 = axis[4];
+
+        // Predict
+        double position = axis[0] + axis[1] * dt;
+        double dt2 = dt * dt;
+        p00 += dt * (2 * p01 + dt * p11) + q * dt2 * dt2 / 4;
+        p01 += dt * p11 + q * dt2 * dt / 2;
+        p11 += q * dt2;
+
+        // Update
+        double s = p00 + r;
+        double k0 = p00 / s;
+        double k1 = p01 / s;
+        double innovation = measured - position;
+        axis[0] = position + k0 * innovation;
+        axis[1] += k1 * innovation;
+        axis[2] = (1 - k0) * p00;
+        axis[3] = (1 - k0) * p01;
+        axis[4] = p11 - k1 * p01;
+    }
+
+    private Map<Long, Track> stripe(Long driverId) {
+        return stripes[(Long.hashCode(driverId) & 0x7fffffff) % STRIPES];
+    }
+
+    // Filter state of one driver. The copy in the map is only replaced, never changed, so it
+    // can be read outside the stripe lock.
+    public static final class Track {
+        private double originLatitude;
+        private double originLongitude;
+        private double metresPerDegreeLng;
+        private double[] north;
+        private double[] east;
+        private long updatedAt;
+        private double storedLatitude;
+        private double storedLongitude;
+        private long storedAt;
+        private int outliers;
+
+        static Track start(double lat, double lng, long now) {
+            Track track = new Track();
+            double r = MEASUREMENT_NOISE_M * MEASUREMENT_NOISE_M;
+            double v = INITIAL_SPEED_NOISE_MPS * INITIAL_SPEED_NOISE_MPS;
+            track.originLatitude = lat;
+            track.originLongitude = lng;
+            track.metresPerDegreeLng = METRES_PER_DEGREE * Math.cos(Math.toRadians(lat));
+            track.north = new double[] { 0, 0, r, 0, v };
+            track.east = new double[] { 0, 0, r, 0, v };
+            track.updatedAt = now;
+            track.storedLatitude = lat;
+            track.storedLongitude = lng;
+            track.storedAt = now;
+            return track;
+        }
+
+        Track copy() {
+            Track track = new Track();
+            track.originLatitude = originLatitude;
+            track.originLongitude = originLongitude;
+            track.metresPerDegreeLng = metresPerDegreeLng;
+            track.north = north.clone();
+            track.east = east.clone();
+            track.updatedAt = updatedAt;
+            track.storedLatitude = storedLatitude;
+            track.storedLongitude = storedLongitude;
+            track.storedAt = storedAt;
+            track.outliers = outliers;
+            return track;
+        }
+
+        // Move the local frame's origin to the estimate, so measurements are always converted
+        // to metres close to where the driver is
+        void recentre() {
+            originLatitude = latitude();
+            originLongitude = longitude();
+            metresPerDegreeLng = METRES_PER_DEGREE * Math.cos(Math.toRadians(originLatitude));
+            north[0] = 0;
+            east[0] = 0;
+        }
+
+        double latitude() {
+            return originLatitude + north[0] / METRES_PER_DEGREE;
+        }
+
+        double longitude() {
+            return originLongitude + east[0] / metresPerDegreeLng;
+        }
+    }
+}
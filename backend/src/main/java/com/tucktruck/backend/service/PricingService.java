@@ -0,0 +1,35 @@
+package com.tucktruck.backend.service;
+
+import com.tucktruck.backend.dto.PriceQuote;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+// Fare calculation: per-km base rate by vehicle type times the zone's surge multiplier.
+@Service
+@RequiredArgsConstructor
+public class PricingService {
+
+    private static final double BASE_FARE = 50.0;
+
+    private final SurgePricingService surgePricingService;
+
+    public PriceQuote quote(Double distance, String vehicleType, Double pickupLatitude, Double pickupLongitude) {
+        double baseFare = calculateBasePrice(distance, vehicleType);
+        double multiplier = surgePricingService.getMultiplier(pickupLatitude, pickupLongitude);
+        double estimatedPrice = Math.round(baseFare * multiplier * 100.0) / 100.0;
+        return new PriceQuote(vehicleType, distance, baseFare, multiplier, estimatedPrice);
+    }
+
+    // Calculate price based on distance and vehicle type
+    public double calculateBasePrice(Double distance, String vehicleType) {
+        String type = vehicleType == null ? "" : vehicleType.toLowerCase();
+        double baseRate = switch (type) {
+            case "mini truck" -> 15.0;
+            case "pickup" -> 12.0;
+            case "tempo" -> 20.0;
+            default -> 10.0;
+        };
+
+        return baseRate * distance + BASE_FARE; // Base fare + per km rate
+    }
+}
@@ -0,0 +1,95 @@
+package com.tucktruck.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tucktruck.backend.cluster.ClusterMessage;
+import com.tucktruck.backend.cluster.ClusterTransport;
+import com.tucktruck.backend.entity.Booking;
+import com.tucktruck.backend.entity.BookingStatus;
+import com.tucktruck.backend.event.BookingChangedEvent;
+import com.tucktruck.backend.event.DriverLocationEvent;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Pushes booking and location events to STOMP subscribers on every node.
+// Events go through the cluster transport; each node then hands them to its own
+// in-memory broker, so a subscriber gets them whichever node it is connected to.
+//
+// Destinations:
+//   /topic/bookings/{id}        status changes of one booking
+//   /topic/bookings/{id}/eta    ETA and progress of one trip (TripEtaService)
+//   /topic/bookings/pending     bookings entering or leaving the pending queue
+//   /topic/locations/{id}       driver pings for one booking
+//   /topic/drivers/locations    every driver ping (admin map)
+@Service
+@Lazy(false)
+@RequiredArgsConstructor
+public class RealtimeRelayService {
+
+    private final ClusterTransport clusterTransport;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+
+    @PostConstruct
+    void init() {
+        clusterTransport.addListener(this::onClusterMessage);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        // The origin node already sent these topics to every node
+        if (event.remote()) {
+            return;
+        }
+        Booking booking = event.booking();
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("bookingId", booking.getId());
+        payload.put("status", booking.getStatus());
+        payload.put("previousStatus", event.previousStatus());
+        payload.put("customerId", booking.getCustomer() != null ? booking.getCustomer().getId() : null);
+        payload.put("driverId", booking.getDriver() != null ? booking.getDriver().getId() : null);
+        payload.put("vehicleType", booking.getVehicleType());
+
+        publish("/topic/bookings/" + booking.getId(), payload);
+        if (event.status() == BookingStatus.SEARCHING_DRIVER
+                || event.previousStatus() == BookingStatus.SEARCHING_DRIVER) {
+            publish("/topic/bookings/pending", payload);
+        }
+    }
+
+    @EventListener
+    public void onDriverLocation(DriverLocationEvent event) {
+        if (event.bookingId() != null) {
+            publish("/topic/locations/" + event.bookingId(), event);
+        }
+        publish("/topic/drivers/locations", event);
+    }
+
+    // Send to a destination on all nodes
+    public void publish(String destination, Object payload) {
+        try {
+            clusterTransport.broadcast(ClusterMessage.Type.TOPIC, destination, objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not encode realtime message", e);
+        }
+    }
+
+    private void onClusterMessage(ClusterMessage message) {
+        if (message.type() != ClusterMessage.Type.TOPIC) {
+            return;
+        }
+        try {
+            messagingTemplate.convertAndSend(message.destination(), objectMapper.readTree(message.payload()));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not decode realtime message", e);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.tucktruck.backend.service;
+
+import com.tucktruck.backend.dto.RouteEstimate;
+import com.tucktruck.backend.util.CityResolver;
+import com.tucktruck.backend.util.GeoUtils;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// Offline road distances and driving times between any two points of the service area.
+// The bundled graph (cities, towns and the highway links between them) is read once into
+// flat arrays and all-pairs fastest routes are precomputed with Floyd-Warshall, so a
+// query is two nearest-node scans plus a table lookup. Pickup and drop snap to the
+// nearest node by coordinates, or by the city named in the address; the legs to and
+// from the snapped nodes are straight lines times a road factor.
+@Slf4j
+@Service
+@Lazy(false)
+public class RoutingService {
+
+    private static final String SOURCE_GRAPH = "GRAPH";
+    private static final String SOURCE_DIRECT = "DIRECT";
+
+    @Value("${tucktruck.routing.graph:classpath:routing/tamil-nadu.graph}")
+    private Resource graph;
+
+    // Points further than this from every node are outside the service area
+    @Value("${tucktruck.routing.max-snap-km:60}")
+    private double maxSnapKm;
+
+    @Value("${tucktruck.routing.road-factor:1.3}")
+    private double roadFactor;
+
+    // Speed on the legs to and from the graph and on same-city trips
+    @Value("${tucktruck.routing.local-speed-kmh:30}")
+    private double localSpeedKmh;
+
+    private int size;
+    private String[] names;
+    private double[] latitudes;
+    private double[] longitudes;
+    private boolean[] towns;
+    private final Map<String, Integer> index = new HashMap<>();
+
+    // size x size, row-major: fastest route i -> j, its length and the next node on it
+    private double[] minutes;
+    private double[] kilometres;
+    private int[] next;
+
+    @PostConstruct
+    public void load() {
+        long started = System.nanoTime();
+        List<String[]> nodes = new ArrayList<>();
+        List<String[]> edges = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(graph.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\\s+");
+                if (fields[0].equals("node") && fields.length == 4) {
+                    nodes.add(fields);
+                } else if (fields[0].equals("edge") && fields.length == 5) {
+                    edges.add(fields);
+                } else {
+                    throw new RuntimeException("Bad routing graph line " + lineNumber + ": " + line);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot read routing graph " + graph, e);
+        }
+
+        size = nodes.size();
+        names = new String[size];
+        latitudes = new double[size];
+        longitudes = new double[size];
+        towns = new boolean[size];
+        index.clear();
+        Set<String> cities = Set.copyOf(CityResolver.cities());
+        for (int i = 0; i < size; i++) {
+            String[] node = nodes.get(i);
+            names[i] = node[1].toLowerCase(Locale.ROOT);
+            latitudes[i] = Double.parseDouble(node[2]);
+            longitudes[i] = Double.parseDouble(node[3]);
+            towns[i] = !cities.contains(names[i]);
+            if (index.put(names[i], i) != null) {
+                throw new RuntimeException("Duplicate routing graph node " + names[i]);
+            }
+        }
+
+        minutes = new double[size * size];
+        kilometres = new double[size * size];
+        next = new int[size * size];
+        Arrays.fill(minutes, Double.POSITIVE_INFINITY);
+        Arrays.fill(kilometres, Double.POSITIVE_INFINITY);
+        Arrays.fill(next, -1);
+        for (int i = 0; i < size; i++) {
+            minutes[i * size + i] = 0;
+            kilometres[i * size + i] = 0;
+            next[i * size + i] = i;
+        }
+        for (String[] edge : edges) {
+            int from = node(edge[1]);
+            int to = node(edge[2]);
+            double km = Double.parseDouble(edge[3]);
+            double time = km / Double.parseDouble(edge[4]) * 60;
+            link(from, to, km, time);
+            link(to, from, km, time);
+        }
+
+        // All-pairs fastest routes; the graph has a few dozen nodes, so this is instant
+        for (int k = 0; k < size; k++) {
+            for (int i = 0; i < size; i++) {
+                double viaK = minutes[i * size + k];
+                if (viaK == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                for (int j = 0; j < size; j++) {
+                    double time = viaK + minutes[k * size + j];
+                    if (time < minutes[i * size + j]) {
+                        minutes[i * size + j] = time;
+                        kilometres[i * size + j] = kilometres[i * size + k] + kilometres[k * size + j];
+                        next[i * size + j] = next[i * size + k];
+                    }
+                }
+            }
+        }
+        log.info("Routing graph loaded: {} nodes, {} links, all pairs in {} ms", size, edges.size(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    // Road distance and driving time between two points; either end may be given by
+    // coordinates, by address, or both. Null when an end is outside the service area,
+    // or when both name the same city and no coordinates tell them apart.
+    public RouteEstimate estimate(Double pickupLatitude, Double pickupLongitude, String pickupAddress,
+            Double dropLatitude, Double dropLongitude, String dropAddress) {
+        boolean pickupPoint = GeoUtils.isValidCoordinate(pickupLatitude, pickupLongitude);
+        boolean dropPoint = GeoUtils.isValidCoordinate(dropLatitude, dropLongitude);
+        int from = pickupPoint ? nearest(pickupLatitude, pickupLongitude) : named(pickupAddress);
+        int to = dropPoint ? nearest(dropLatitude, dropLongitude) : named(dropAddress);
+        if (from < 0 || to < 0) {
+            return null;
+        }
+
+        double directKm = pickupPoint && dropPoint
+                ? GeoUtils.haversineKm(pickupLatitude, pickupLongitude, dropLatitude, dropLongitude) * roadFactor
+                : Double.NaN;
+        if (from == to) {
+            return Double.isNaN(directKm) ? null
+                    : direct(from, to, directKm, directKm / localSpeedKmh * 60);
+        }
+
+        double accessKm = pickupPoint ? legKm(pickupLatitude, pickupLongitude, from) : 0;
+        double egressKm = dropPoint ? legKm(dropLatitude, dropLongitude, to) : 0;
+        double routeKm = kilometres[from * size + to];
+        if (routeKm == Double.POSITIVE_INFINITY) {
+            return null;
+        }
+        double totalKm = accessKm + routeKm + egressKm;
+        double totalMinutes = (accessKm + egressKm) / localSpeedKmh * 60 + minutes[from * size + to];
+
+        // Neighbouring points that snap to different nodes: the legs to and from the nodes make
+        // up most of the route, so going through them is a detour. Longer trips keep the graph
+        // route even when the straight line times the road factor comes out shorter.
+        if (accessKm + egressKm >= routeKm && directKm < totalKm) {
+            return direct(from, to, directKm, directKm * totalMinutes / totalKm);
+        }
+        return new RouteEstimate(names[from], names[to], round(totalKm), round(totalMinutes), SOURCE_GRAPH,
+                path(from, to));
+    }
+
+    // Graph nodes (cities and towns) routes can start and end at
+    public List<String> getNodes() {
+        return List.of(names);
+    }
+
+    private RouteEstimate direct(int from, int to, double km, double time) {
+        return new RouteEstimate(names[from], names[to], round(km), round(time), SOURCE_DIRECT, List.of());
+    }
+
+    private List<String> path(int from, int to) {
+        List<String> path = new ArrayList<>();
+        path.add(names[from]);
+        for (int at = from; at != to; ) {
+            at = next[at * size + to];
+            path.add(names[at]);
+        }
+        return path;
+    }
+
+    private void link(int from, int to, double km, double time) {
+        if (time < minutes[from * size + to]) {
+            minutes[from * size + to] = time;
+            kilometres[from * size + to] = km;
+            next[from * size + to] = to;
+        }
+    }
+
+    private int node(String name) {
+        Integer node = index.get(name.toLowerCase(Locale.ROOT));
+        if (node == null) {
+            throw new RuntimeException("Unknown routing graph node " + name);
+        }
+        return node;
+    }
+
+    // Nearest node within maxSnapKm, -1 outside the service area
+    private int nearest(double latitude, double longitude) {
+        int best = -1;
+        double bestKm = maxSnapKm;
+        for (int i = 0; i < size; i++) {
+            double km = GeoUtils.haversineKm(latitude, longitude, latitudes[i], longitudes[i]);
+            if (km <= bestKm) {
+                best = i;
+                bestKm = km;
+            }
+        }
+        return best;
+    }
+
+    // A town named in the address, else the main city it resolves to; -1 when unknown
+    private int named(String address) {
+        if (address == null || address.isBlank()) {
+            return -1;
+        }
+        String lower = address.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < size; i++) {
+            if (towns[i] && lower.contains(names[i])) {
+                return i;
+            }
+        }
+        Integer city = index.get(CityResolver.resolve(address));
+        return city != null ? city : -1;
+    }
+
+    private double legKm(double latitude, double longitude, int node) {
+        return GeoUtils.haversineKm(latitude, longitude, latitudes[node], longitudes[node]) * roadFactor;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+}
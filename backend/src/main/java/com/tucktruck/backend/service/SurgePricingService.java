@@ -0,0 +1,170 @@
+package com.tucktruck.backend.service;
+
+import com.tucktruck.backend.dto.ZoneSurge;
+import com.tucktruck.backend.entity.Booking;
+import com.tucktruck.backend.entity.BookingStatus;
+import com.tucktruck.backend.event.BookingChangedEvent;
+import com.tucktruck.backend.event.DriverLocationEvent;
+import com.tucktruck.backend.repository.BookingRepository;
+import com.tucktruck.backend.util.GeoUtils;
+import com.tucktruck.backend.util.SlidingWindowCounter;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Live supply/demand per zone. The service area is split into square grid zones;
+// each zone counts new bookings and driver presence in a sliding window plus the
+// bookings still waiting for a driver. Reads only sum a few atomic slots, so quotes
+// never block on writers.
+@Service
+@Lazy(false)
+@RequiredArgsConstructor
+public class SurgePricingService {
+
+    private final BookingRepository bookingRepository;
+
+    @Value("${tucktruck.surge.zone-size-deg:0.05}")
+    private double zoneSizeDeg;
+
+    @Value("${tucktruck.surge.slot-seconds:60}")
+    private int slotSeconds;
+
+    @Value("${tucktruck.surge.window-slots:10}")
+    private int windowSlots;
+
+    @Value("${tucktruck.surge.sensitivity:0.5}")
+    private double sensitivity;
+
+    @Value("${tucktruck.surge.max-multiplier:2.5}")
+    private double maxMultiplier;
+
+    private final Map<Long, ZoneStats> zones = new ConcurrentHashMap<>();
+
+    // Last (zone, slot) each driver was counted in, so a driver counts once per slot
+    private final Map<Long, DriverMark> driverMarks = new ConcurrentHashMap<>();
+
+    // Restore the waiting bookings after a restart
+    @PostConstruct
+    public void rebuild() {
+        zones.clear();
+        for (Booking booking : bookingRepository.findByStatus(BookingStatus.SEARCHING_DRIVER)) {
+            ZoneStats stats = zoneFor(booking);
+            if (stats != null) {
+                stats.pending.incrementAndGet();
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        ZoneStats stats = zoneFor(event.booking());
+        if (stats == null) {
+            return;
+        }
+        if (event.enteredStatus(BookingStatus.SEARCHING_DRIVER)) {
+            stats.pending.incrementAndGet();
+            stats.demand.increment(System.currentTimeMillis());
+        } else if (event.previousStatus() == BookingStatus.SEARCHING_DRIVER
+                && event.status() != BookingStatus.SEARCHING_DRIVER) {
+            stats.pending.updateAndGet(v -> Math.max(0, v - 1));
+        }
+    }
+
+    @EventListener
+    public void onDriverLocation(DriverLocationEvent event) {
+        long zoneId = GeoUtils.cellKey(event.latitude(), event.longitude(), zoneSizeDeg);
+        long slot = event.timestampMillis() / slotMillis();
+        DriverMark previous = driverMarks.get(event.driverId());
+        if (previous != null && previous.zoneId() == zoneId && previous.slot() == slot) {
+            return;
+        }
+        driverMarks.put(event.driverId(), new DriverMark(zoneId, slot));
+        zone(zoneId).supply.increment(event.timestampMillis());
+    }
+
+    // Current multiplier for the zone containing the point (1.0 when unknown)
+    public double getMultiplier(Double latitude, Double longitude) {
+        if (!GeoUtils.isValidCoordinate(latitude, longitude)) {
+            return 1.0;
+        }
+        ZoneStats stats = zones.get(GeoUtils.cellKey(latitude, longitude, zoneSizeDeg));
+        return stats == null ? 1.0 : multiplier(stats, System.currentTimeMillis());
+    }
+
+    // Zones with any activity, hottest first (drivers use this to reposition)
+    public List<ZoneSurge> getZones() {
+        long now = System.currentTimeMillis();
+        List<ZoneSurge> result = new ArrayList<>();
+        for (Map.Entry<Long, ZoneStats> entry : zones.entrySet()) {
+            ZoneStats stats = entry.getValue();
+            int pending = stats.pending.get();
+            long recent = stats.demand.sum(now);
+            double drivers = activeDrivers(stats, now);
+            if (pending == 0 && recent == 0 && drivers == 0) {
+                continue;
+            }
+            long zoneId = entry.getKey();
+            result.add(new ZoneSurge(zoneId,
+                    GeoUtils.cellCenterLat(zoneId, zoneSizeDeg),
+                    GeoUtils.cellCenterLng(zoneId, zoneSizeDeg),
+                    pending, recent, drivers, multiplier(stats, now)));
+        }
+        result.sort(Comparator.comparingDouble(ZoneSurge::getSurgeMultiplier).reversed());
+        return result;
+    }
+
+    private double multiplier(ZoneStats stats, long now) {
+        double demand = Math.max(stats.pending.get(), stats.demand.sum(now));
+        double supply = Math.max(1.0, activeDrivers(stats, now));
+        double ratio = demand / supply;
+        if (ratio <= 1.0) {
+            return 1.0;
+        }
+        double multiplier = Math.min(maxMultiplier, 1.0 + sensitivity * (ratio - 1.0));
+        return Math.round(multiplier * 10.0) / 10.0;
+    }
+
+    private double activeDrivers(ZoneStats stats, long now) {
+        return (double) stats.supply.sum(now) / windowSlots;
+    }
+
+    private ZoneStats zoneFor(Booking booking) {
+        if (!GeoUtils.isValidCoordinate(booking.getPickupLatitude(), booking.getPickupLongitude())) {
+            return null;
+        }
+        return zone(GeoUtils.cellKey(booking.getPickupLatitude(), booking.getPickupLongitude(), zoneSizeDeg));
+    }
+
+    private ZoneStats zone(long zoneId) {
+        return zones.computeIfAbsent(zoneId, id -> new ZoneStats(slotMillis(), windowSlots));
+    }
+
+    private long slotMillis() {
+        return slotSeconds * 1000L;
+    }
+
+    private record DriverMark(long zoneId, long slot) {
+    }
+
+    private static final class ZoneStats {
+        private final SlidingWindowCounter demand;
+        private final SlidingWindowCounter supply;
+        private final AtomicInteger pending = new AtomicInteger();
+
+        ZoneStats(long slotMillis, int slots) {
+            this.demand = new SlidingWindowCounter(slotMillis, slots);
+            this.supply = new SlidingWindowCounter(slotMillis, slots);
+        }
+    }
+}
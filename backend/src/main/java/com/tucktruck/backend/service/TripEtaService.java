@@ -0,0 +1,269 @@
+package com.tucktruck.backend.service;
+
+import com.tucktruck.backend.dto.TripEta;
+import com.tucktruck.backend.entity.Booking;
+import com.tucktruck.backend.entity.BookingStatus;
+import com.tucktruck.backend.event.BookingChangedEvent;
+import com.tucktruck.backend.event.DriverLocationEvent;
+import com.tucktruck.backend.repository.BookingRepository;
+import com.tucktruck.backend.util.GeoUtils;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Live ETA and progress of every active trip, updated in O(1) per location ping.
+// Speed is an exponentially smoothed average over consecutive pings; remaining
+// distance is the straight line to the current target times a road factor (taken
+// from the booking's route distance when it is known). Results are stored on each
+// ping, so reads are just a copy, and pushed to /topic/bookings/{id}/eta.
+@Service
+@Lazy(false)
+@RequiredArgsConstructor
+public class TripEtaService {
+
+    private static final List<BookingStatus> ACTIVE_STATUSES = List.of(
+            BookingStatus.DRIVER_ASSIGNED,
+            BookingStatus.DRIVER_REACHED_PICKUP,
+            BookingStatus.TRIP_STARTED,
+            BookingStatus.IN_TRANSIT);
+
+    // Pings closer together than this only move the driver, not the speed estimate
+    private static final long MIN_SPEED_SAMPLE_MS = 1_000;
+
+    private final BookingRepository bookingRepository;
+    private final DriverPresenceService driverPresenceService;
+    private final RealtimeRelayService realtimeRelayService;
+
+    @Value("${tucktruck.eta.default-speed-kmh:30}")
+    private double defaultSpeedKmh;
+
+    @Value("${tucktruck.eta.min-speed-kmh:5}")
+    private double minSpeedKmh;
+
+    @Value("${tucktruck.eta.max-speed-kmh:120}")
+    private double maxSpeedKmh;
+
+    @Value("${tucktruck.eta.road-factor:1.3}")
+    private double roadFactor;
+
+    @Value("${tucktruck.eta.smoothing:0.3}")
+    private double smoothing;
+
+    private final Map<Long, Trip> trips = new ConcurrentHashMap<>();
+
+    // Restore the active trips after a restart
+    @PostConstruct
+    public void rebuild() {
+        trips.clear();
+        for (Booking booking : bookingRepository.findByStatusIn(ACTIVE_STATUSES)) {
+            track(booking);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        Booking booking = event.booking();
+        if (!ACTIVE_STATUSES.contains(event.status())) {
+            trips.remove(booking.getId());
+            return;
+        }
+        Long driverId = booking.getDriver() != null ? booking.getDriver().getId() : null;
+        Trip trip = trips.get(booking.getId());
+        if (trip == null || !Objects.equals(trip.driverId, driverId)) {
+            // New trip, or reassigned to another driver
+            trips.remove(booking.getId());
+            trip = track(booking);
+        } else {
+            synchronized (trip) {
+                trip.status = event.status();
+                trip.recompute();
+            }
+        }
+        if (!event.remote()) {
+            realtimeRelayService.publish("/topic/bookings/" + booking.getId() + "/eta", trip.snapshot());
+        }
+    }
+
+    @EventListener
+    public void onDriverLocation(DriverLocationEvent event) {
+        if (event.bookingId() == null) {
+            return;
+        }
+        Trip trip = trips.get(event.bookingId());
+        if (trip == null) {
+            return;
+        }
+        synchronized (trip) {
+            trip.move(event.latitude(), event.longitude(), event.timestampMillis());
+        }
+        realtimeRelayService.publish("/topic/bookings/" + event.bookingId() + "/eta", trip.snapshot());
+    }
+
+    // Current estimate for an active trip
+    public TripEta getEta(Long bookingId) {
+        Trip trip = trips.get(bookingId);
+        if (trip == null) {
+            Booking booking = bookingRepository.findById(bookingId)
+                    .orElseThrow(() -> new RuntimeException("Booking not found"));
+            if (!ACTIVE_STATUSES.contains(booking.getStatus())) {
+                throw new RuntimeException("Booking is not an active trip");
+            }
+            trip = track(booking);
+        }
+
+        // Pings may have landed on another node; the replicated position is newer then
+        DriverPresenceService.DriverPosition position = trip.driverId == null
+                ? null : driverPresenceService.getPosition(trip.driverId);
+        synchronized (trip) {
+            if (position != null && position.timestampMillis() > trip.lastPingAt) {
+                trip.move(position.latitude(), position.longitude(), position.timestampMillis());
+            }
+            return trip.snapshot();
+        }
+    }
+
+    private Trip track(Booking booking) {
+        Trip trip = new Trip(booking);
+        DriverPresenceService.DriverPosition position = trip.driverId == null
+                ? null : driverPresenceService.getPosition(trip.driverId);
+        synchronized (trip) {
+            if (position != null) {
+                trip.move(position.latitude(), position.longitude(), position.timestampMillis());
+            }
+            trip.recompute();
+        }
+        Trip existing = trips.putIfAbsent(booking.getId(), trip);
+        return existing != null ? existing : trip;
+    }
+
+    private static boolean valid(double latitude, double longitude) {
+        return !Double.isNaN(latitude) && GeoUtils.isValidCoordinate(latitude, longitude);
+    }
+
+    private static double coordinate(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+
+    // Per-trip state; all fields are guarded by the Trip's monitor
+    private final class Trip {
+        private final Long bookingId;
+        private final Long driverId;
+        private final double pickupLat;
+        private final double pickupLng;
+        private final double dropLat;
+        private final double dropLng;
+        private final double factor;
+        private final double legKm; // pickup -> drop, NaN when unknown
+        private BookingStatus status;
+
+        private double latitude = Double.NaN;
+        private double longitude = Double.NaN;
+        private long lastPingAt;
+        private double sampleLat;
+        private double sampleLng;
+        private long sampleAt;
+        private double speedKmh = defaultSpeedKmh;
+
+        // Derived on every change
+        private boolean toDrop;
+        private double remainingKm = Double.NaN;
+        private double etaMinutes = Double.NaN;
+        private double etaDropMinutes = Double.NaN;
+        private double progress;
+
+        Trip(Booking booking) {
+            bookingId = booking.getId();
+            driverId = booking.getDriver() != null ? booking.getDriver().getId() : null;
+            status = booking.getStatus();
+            pickupLat = coordinate(booking.getPickupLatitude());
+            pickupLng = coordinate(booking.getPickupLongitude());
+            dropLat = coordinate(booking.getDropLatitude());
+            dropLng = coordinate(booking.getDropLongitude());
+
+            double straightKm = valid(pickupLat, pickupLng) && valid(dropLat, dropLng)
+                    ? GeoUtils.haversineKm(pickupLat, pickupLng, dropLat, dropLng) : Double.NaN;
+            if (booking.getDistance() != null && straightKm > 0.5) {
+                factor = Math.max(1.0, Math.min(3.0, booking.getDistance() / straightKm));
+                legKm = booking.getDistance();
+            } else {
+                factor = roadFactor;
+                legKm = straightKm * roadFactor;
+            }
+        }
+
+        void move(double lat, double lng, long timestampMillis) {
+            if (timestampMillis < lastPingAt) {
+                return;
+            }
+            if (sampleAt == 0) {
+                sampleLat = lat;
+                sampleLng = lng;
+                sampleAt = timestampMillis;
+            } else if (timestampMillis - sampleAt >= MIN_SPEED_SAMPLE_MS) {
+                double km = GeoUtils.haversineKm(sampleLat, sampleLng, lat, lng) * factor;
+                double hours = (timestampMillis - sampleAt) / 3_600_000.0;
+                double sample = Math.min(km / hours, maxSpeedKmh);
+                speedKmh += smoothing * (sample - speedKmh);
+                sampleLat = lat;
+                sampleLng = lng;
+                sampleAt = timestampMillis;
+            }
+            latitude = lat;
+            longitude = lng;
+            lastPingAt = timestampMillis;
+            recompute();
+        }
+
+        void recompute() {
+            toDrop = status != BookingStatus.DRIVER_ASSIGNED;
+            double targetLat = toDrop ? dropLat : pickupLat;
+            double targetLng = toDrop ? dropLng : pickupLng;
+            double speed = Math.max(speedKmh, minSpeedKmh);
+
+            if (!valid(latitude, longitude) || !valid(targetLat, targetLng)) {
+                remainingKm = Double.NaN;
+                etaMinutes = Double.NaN;
+                etaDropMinutes = toDrop || Double.isNaN(legKm) ? Double.NaN : legKm / speed * 60;
+                return;
+            }
+
+            remainingKm = GeoUtils.haversineKm(latitude, longitude, targetLat, targetLng) * factor;
+            etaMinutes = remainingKm / speed * 60;
+            if (toDrop) {
+                etaDropMinutes = etaMinutes;
+                if (legKm > 0) {
+                    // Never move backwards on GPS jitter
+                    progress = Math.max(progress, Math.min(1.0, Math.max(0.0, 1.0 - remainingKm / legKm)));
+                }
+            } else {
+                etaDropMinutes = Double.isNaN(legKm) ? Double.NaN : (remainingKm + legKm) / speed * 60;
+            }
+        }
+
+        TripEta snapshot() {
+            synchronized (this) {
+                return new TripEta(bookingId, status, toDrop ? "DROP" : "PICKUP",
+                        nullable(latitude), nullable(longitude), round(remainingKm), round(speedKmh),
+                        round(etaMinutes), round(etaDropMinutes), round(progress),
+                        lastPingAt > 0 ? lastPingAt : null);
+            }
+        }
+
+        private Double nullable(double value) {
+            return Double.isNaN(value) ? null : value;
+        }
+
+        private Double round(double value) {
+            return Double.isNaN(value) ? null : Math.round(value * 100) / 100.0;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.tucktruck.backend.service;
 
+import com.tucktruck.backend.datasource.ReplicaRoutingDataSource;
 import com.tucktruck.backend.dto.AuthResponse;
 import com.tucktruck.backend.dto.LoginRequest;
 import com.tucktruck.backend.dto.SignupRequest;
@@ -21,7 +22,7 @@ public class UserService {
 
     public AuthResponse register(SignupRequest request) {
         // Check if user already exists
-        if (userRepository.findByEmail(request.getEmail()).isPresent()) {
+        if (ReplicaRoutingDataSource.onPrimary(() -> userRepository.findByEmail(request.getEmail())).isPresent()) {
             throw new RuntimeException("Email already in use");
         }
 
@@ -49,7 +50,9 @@ public class UserService {
     }
 
     public AuthResponse login(LoginRequest request) {
-        Optional<User> userOptional = userRepository.findByEmail(request.getEmail());
+        // Primary: a user who just signed up must be able to log in straight away
+        Optional<User> userOptional = ReplicaRoutingDataSource.onPrimary(
+                () -> userRepository.findByEmail(request.getEmail()));
 
         if (userOptional.isPresent()) {
             User user = userOptional.get();
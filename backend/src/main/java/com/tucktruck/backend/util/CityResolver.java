@@ -0,0 +1,64 @@
+package com.tucktruck.backend.util;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Server-side copy of the frontend cityMap (frontend/src/utils/pricing.ts).
+// Maps a free-text address to the main Tamil Nadu city it belongs to.
+public final class CityResolver {
+
+    public static final String UNKNOWN = "other";
+
+    private static final Map<String, List<String>> CITY_ALIASES = new LinkedHashMap<>();
+
+    static {
+        CITY_ALIASES.put("chennai", List.of("madras", "tambaram", "guindy", "velachery", "porur", "anna nagar"));
+        CITY_ALIASES.put("trichy", List.of("tiruchirappalli", "tiruverumbur", "thiruverumbur", "srirangam", "ponmalai"));
+        CITY_ALIASES.put("madurai", List.of("thirumangalam", "tirumangalam", "melur", "vadipatti"));
+        CITY_ALIASES.put("coimbatore", List.of("kovai", "tiruppur", "pollachi", "mettupalayam"));
+        CITY_ALIASES.put("salem", List.of("yercaud", "attur", "sankagiri"));
+        CITY_ALIASES.put("thanjavur", List.of("tanjore", "kumbakonam", "papanasam"));
+        CITY_ALIASES.put("vellore", List.of("arcot", "ranipet", "katpadi"));
+        CITY_ALIASES.put("tirunelveli", List.of("palayamkottai", "tenkasi", "ambasamudram"));
+        CITY_ALIASES.put("thoothukudi", List.of("tuticorin", "kovilpatti"));
+        CITY_ALIASES.put("nagercoil", List.of("kanyakumari", "cape comorin"));
+        CITY_ALIASES.put("erode", List.of("bhavani", "gobichettipalayam", "perundurai"));
+        CITY_ALIASES.put("namakkal", List.of("rasipuram", "tiruchengode"));
+        CITY_ALIASES.put("nagapattinam", List.of("mayiladuthurai", "karaikal", "vedaranyam"));
+        CITY_ALIASES.put("karur", List.of("kulithalai", "aravakurichi"));
+        CITY_ALIASES.put("dindigul", List.of("palani", "oddanchatram", "natham"));
+        CITY_ALIASES.put("kanchipuram", List.of("kanchi", "chengalpattu"));
+        CITY_ALIASES.put("cuddalore", List.of("chidambaram", "neyveli"));
+        CITY_ALIASES.put("tiruvannamalai", List.of("arani", "polur"));
+        CITY_ALIASES.put("hosur", List.of("krishnagiri", "denkanikottai"));
+        CITY_ALIASES.put("ramanathapuram", List.of("rameswaram", "paramakudi"));
+    }
+
+    private CityResolver() {
+    }
+
+    public static String resolve(String address) {
+        if (address == null || address.isBlank()) {
+            return UNKNOWN;
+        }
+        String lower = address.toLowerCase(Locale.ROOT).trim();
+
+        for (Map.Entry<String, List<String>> entry : CITY_ALIASES.entrySet()) {
+            if (lower.contains(entry.getKey())) {
+                return entry.getKey();
+            }
+            for (String alias : entry.getValue()) {
+                if (lower.contains(alias)) {
+                    return entry.getKey();
+                }
+            }
+        }
+        return UNKNOWN;
+    }
+
+    public static List<String> cities() {
+        return List.copyOf(CITY_ALIASES.keySet());
+    }
+}
@@ -0,0 +1,53 @@
+package com.tucktruck.backend.util;
+
+// Small geo helpers shared by pricing, tracking and dispatch.
+public final class GeoUtils {
+
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private GeoUtils() {
+    }
+
+    // Great-circle distance in km
+    public static double haversineKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                        * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    // Square grid cell containing the point, packed as (latIndex << 32 | lngIndex)
+    public static long cellKey(double lat, double lng, double cellSizeDeg) {
+        long latIndex = (long) Math.floor(lat / cellSizeDeg);
+        long lngIndex = (long) Math.floor(lng / cellSizeDeg);
+        return (latIndex << 32) | (lngIndex & 0xffffffffL);
+    }
+
+    public static long cellKey(long latIndex, long lngIndex) {
+        return (latIndex << 32) | (lngIndex & 0xffffffffL);
+    }
+
+    public static int cellLatIndex(long cellKey) {
+        return (int) (cellKey >> 32);
+    }
+
+    public static int cellLngIndex(long cellKey) {
+        return (int) cellKey;
+    }
+
+    public static double cellCenterLat(long cellKey, double cellSizeDeg) {
+        return (cellLatIndex(cellKey) + 0.5) * cellSizeDeg;
+    }
+
+    public static double cellCenterLng(long cellKey, double cellSizeDeg) {
+        return (cellLngIndex(cellKey) + 0.5) * cellSizeDeg;
+    }
+
+    public static boolean isValidCoordinate(Double lat, Double lng) {
+        return lat != null && lng != null
+                && lat >= -90 && lat <= 90 && lng >= -180 && lng <= 180
+                && !(lat == 0.0 && lng == 0.0);
+    }
+}
@@ -0,0 +1,64 @@
+package com.tucktruck.backend.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Lock-free event counter over a sliding time window split into fixed slots.
+// Each slot packs its time epoch (high 40 bits) and count (low 24 bits) into one
+// long so a slot can be rolled over and incremented with a single CAS.
+public final class SlidingWindowCounter {
+
+    private static final int COUNT_BITS = 24;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final long slotMillis;
+    private final int slots;
+    private final AtomicLongArray cells;
+
+    public SlidingWindowCounter(long slotMillis, int slots) {
+        this.slotMillis = slotMillis;
+        this.slots = slots;
+        this.cells = new AtomicLongArray(slots);
+    }
+
+    public void increment(long nowMillis) {
+        long epoch = nowMillis / slotMillis;
+        int index = (int) (epoch % slots);
+        while (true) {
+            long current = cells.get(index);
+            long next;
+            if ((current >>> COUNT_BITS) == epoch) {
+                if ((current & COUNT_MASK) == COUNT_MASK) {
+                    return; // saturated
+                }
+                next = current + 1;
+            } else {
+                next = (epoch << COUNT_BITS) | 1;
+            }
+            if (cells.compareAndSet(index, current, next)) {
+                return;
+            }
+        }
+    }
+
+    // Total count of the slots still inside the window
+    public long sum(long nowMillis) {
+        long currentEpoch = nowMillis / slotMillis;
+        long total = 0;
+        for (int i = 0; i < slots; i++) {
+            long value = cells.get(i);
+            long epoch = value >>> COUNT_BITS;
+            if (epoch > currentEpoch - slots && epoch <= currentEpoch) {
+                total += value & COUNT_MASK;
+            }
+        }
+        return total;
+    }
+
+    public int slots() {
+        return slots;
+    }
+
+    public long windowMillis() {
+        return slotMillis * slots;
+    }
+}
@@ -0,0 +1,165 @@
+package com.tucktruck.backend.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Hierarchical timing wheel for large numbers of coarse deadlines.
+// Level 0 has one slot per tick; every higher level has slots that are 2^bits times
+// wider. A timer goes into the lowest level that can hold its delay and is moved
+// down (cascaded) when the lower level wraps around, so schedule and cancel are O(1)
+// and advancing costs O(1) per tick plus O(1) per timer cascade.
+// Timers fire on the first tick at or after their deadline. Not thread-safe.
+public final class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final int bits;
+    private final int mask;
+    private final Timer<T>[][] levels;
+    private final Timer<T> due = Timer.sentinel();
+
+    private long currentTick;
+    private int size;
+
+    // A scheduled timer; hand it back to cancel()
+    public static final class Timer<T> {
+        private final T payload;
+        private final long deadlineTick;
+        private Timer<T> prev;
+        private Timer<T> next;
+
+        private Timer(T payload, long deadlineTick) {
+            this.payload = payload;
+            this.deadlineTick = deadlineTick;
+        }
+
+        private static <T> Timer<T> sentinel() {
+            Timer<T> head = new Timer<>(null, 0);
+            head.prev = head;
+            head.next = head;
+            return head;
+        }
+
+        public T payload() {
+            return payload;
+        }
+
+        public boolean isArmed() {
+            return next != null;
+        }
+    }
+
+    // 2^bits slots per level; levels * bits must leave room for the longest delay in ticks
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int bits, int levelCount, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.bits = bits;
+        this.mask = (1 << bits) - 1;
+        this.levels = new Timer[levelCount][1 << bits];
+        for (Timer<T>[] level : levels) {
+            for (int i = 0; i < level.length; i++) {
+                level[i] = Timer.sentinel();
+            }
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    public Timer<T> schedule(T payload, long deadlineMillis) {
+        Timer<T> timer = new Timer<>(payload, Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis));
+        place(timer);
+        size++;
+        return timer;
+    }
+
+    // True if the timer was still armed
+    public boolean cancel(Timer<T> timer) {
+        if (timer == null || !timer.isArmed()) {
+            return false;
+        }
+        unlink(timer);
+        size--;
+        return true;
+    }
+
+    // Move time forward and return the payloads of every timer that came due
+    public List<T> advance(long nowMillis) {
+        List<T> expired = new ArrayList<>();
+        drain(due, expired);
+        long target = nowMillis / tickMillis;
+        while (currentTick < target) {
+            currentTick++;
+            for (int level = levels.length - 1; level > 0; level--) {
+                int shift = bits * level;
+                if ((currentTick & ((1L << shift) - 1)) == 0) {
+                    cascade(levels[level][(int) ((currentTick >>> shift) & mask)], expired);
+                }
+            }
+            drain(levels[0][(int) (currentTick & mask)], expired);
+        }
+        return expired;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void place(Timer<T> timer) {
+        long delta = timer.deadlineTick - currentTick;
+        if (delta <= 0) {
+            append(due, timer);
+            return;
+        }
+        int level = 0;
+        while (level < levels.length - 1 && delta >= 1L << (bits * (level + 1))) {
+            level++;
+        }
+        // Beyond the top level the slot aliases; the timer is simply cascaded again next round
+        append(levels[level][(int) ((timer.deadlineTick >>> (bits * level)) & mask)], timer);
+    }
+
+    // Re-place every timer of a higher-level slot now that it is within reach
+    private void cascade(Timer<T> head, List<T> expired) {
+        Timer<T> timer = head.next;
+        head.next = head;
+        head.prev = head;
+        while (timer != head) {
+            Timer<T> next = timer.next;
+            timer.prev = null;
+            timer.next = null;
+            if (timer.deadlineTick <= currentTick) {
+                expired.add(timer.payload);
+                size--;
+            } else {
+                place(timer);
+            }
+            timer = next;
+        }
+    }
+
+    private void drain(Timer<T> head, List<T> expired) {
+        Timer<T> timer = head.next;
+        while (timer != head) {
+            Timer<T> next = timer.next;
+            timer.prev = null;
+            timer.next = null;
+            expired.add(timer.payload);
+            size--;
+            timer = next;
+        }
+        head.next = head;
+        head.prev = head;
+    }
+
+    private static <T> void append(Timer<T> head, Timer<T> timer) {
+        timer.prev = head.prev;
+        timer.next = head;
+        head.prev.next = timer;
+        head.prev = timer;
+    }
+
+    private static <T> void unlink(Timer<T> timer) {
+        timer.prev.next = timer.next;
+        timer.next.prev = timer.prev;
+        timer.prev = null;
+        timer.next = null;
+    }
+}
@@ -0,0 +1,79 @@
+package com.tucktruck.backend.loadsim;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+// HTTP client for the load simulation. Every call is timed and recorded under its
+// endpoint template (e.g. "POST /api/bookings/{id}/location").
+public class LoadSimClient {
+
+    private final String baseUrl;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+    private final Map<String, LatencyRecorder> recorders = new ConcurrentHashMap<>();
+
+    public LoadSimClient(String baseUrl, ObjectMapper objectMapper) {
+        this.baseUrl = baseUrl;
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+    }
+
+    // Returns the parsed JSON body, or null for an empty body; throws on non-2xx
+    public JsonNode call(String endpoint, String method, String path, Object body, Map<String, String> headers) {
+        LatencyRecorder recorder = recorder(endpoint);
+        long start = System.nanoTime();
+        try {
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofSeconds(60))
+                    .header("Content-Type", "application/json");
+            headers.forEach(request::header);
+            request.method(method, body == null
+                    ? HttpRequest.BodyPublishers.noBody()
+                    : HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+
+            HttpResponse<byte[]> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+            long micros = (System.nanoTime() - start) / 1_000;
+            if (response.statusCode() >= 400) {
+                recorder.recordError();
+                throw new IllegalStateException(endpoint + " returned " + response.statusCode());
+            }
+            recorder.record(micros);
+            byte[] bytes = response.body();
+            return bytes == null || bytes.length == 0 ? null : objectMapper.readTree(bytes);
+        } catch (IOException e) {
+            recorder.recordError();
+            throw new IllegalStateException(endpoint + " failed: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(endpoint + " interrupted", e);
+        }
+    }
+
+    public JsonNode call(String endpoint, String method, String path, Object body) {
+        return call(endpoint, method, path, body, Map.of());
+    }
+
+    public LatencyRecorder recorder(String name) {
+        return recorders.computeIfAbsent(name, key -> new LatencyRecorder());
+    }
+
+    // Endpoint -> recorder, sorted by name
+    public Map<String, LatencyRecorder> recorders() {
+        return new TreeMap<>(recorders);
+    }
+}
@@ -0,0 +1,506 @@
+package com.tucktruck.backend.loadsim;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tucktruck.backend.util.GeoUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Synthetic fleet load generator, run against a separately started backend (Spring profile
+// "loadsim", in-memory H2 database) so the load and the server do not share a JVM.
+// Signs up drivers and customers through the auth API, keeps every driver pinging its
+// location, creates deliveries at a fixed rate and drives each one through
+// assign -> pickup -> trip -> completed -> paid in real time, with drivers moving at a
+// road speed. Most deliveries stay within one city; a share runs between the two ends of a
+// link of the backend's routing graph (routing/tamil-nadu.graph), at that link's truck
+// speed, so inter-city pricing, ETAs and geofences get load too. Latency is recorded per
+// endpoint, plus the time from booking creation to driver assignment.
+//
+// Run (see README "Load Simulation"):
+//   mvn -Ph2 spring-boot:run -Dspring-boot.run.profiles=loadsim
+//   mvn -Ploadsim test-compile exec:java -Dloadsim.drivers=5000
+// Settings are loadsim.* system properties.
+@Slf4j
+public class LoadSimulation {
+
+    private static final long TICK_MS = 100;
+
+    private static final String ROUTING_GRAPH = "routing/tamil-nadu.graph";
+    private static final double MIN_INTER_CITY_KM = 15;
+
+    private static final String[] VEHICLE_TYPES = { "mini truck", "pickup", "tempo" };
+
+    private static final City[] CITIES = {
+            new City("Chennai", 13.0827, 80.2707),
+            new City("Trichy", 10.7905, 78.7047),
+            new City("Madurai", 9.9252, 78.1198),
+            new City("Coimbatore", 11.0168, 76.9558),
+            new City("Salem", 11.6643, 78.1460),
+            new City("Thanjavur", 10.7870, 79.1378),
+            new City("Vellore", 12.9165, 79.1325),
+            new City("Tirunelveli", 8.7139, 77.7567),
+            new City("Erode", 11.3410, 77.7172),
+            new City("Namakkal", 11.2189, 78.1674),
+            new City("Karur", 10.9601, 78.0766),
+            new City("Dindigul", 10.3673, 77.9803),
+            new City("Kanchipuram", 12.8342, 79.7036),
+            new City("Hosur", 12.7409, 77.8253),
+            new City("Nagapattinam", 10.7672, 79.8449),
+    };
+
+    private final String baseUrl = System.getProperty("loadsim.base-url", "http://localhost:8080");
+    private final int driverCount = Integer.getInteger("loadsim.drivers", 5000);
+    private final int customerCount = Integer.getInteger("loadsim.customers", 500);
+    private final int bookingsPerMinute = Integer.getInteger("loadsim.bookings-per-minute", 500);
+    // Inter-city trips take hours; at this share they keep about a fifth of the fleet busy
+    private final int interCityPercent = Integer.getInteger("loadsim.intercity-percent", 10);
+    private final long pingIntervalMs = Long.getLong("loadsim.ping-interval-ms", 5000);
+    // Trips are not time-compressed, so the GPS filter sees real speeds
+    private final double speedKmh = Double.parseDouble(System.getProperty("loadsim.speed-kmh", "40"));
+    private final long durationSeconds = Long.getLong("loadsim.duration-seconds", 1200);
+    private final int setupConcurrency = Integer.getInteger("loadsim.setup-concurrency", 64);
+    private final long seed = Long.getLong("loadsim.seed", 42);
+    private final String reportFile = System.getProperty("loadsim.report-file", "target/loadsim-report.txt");
+
+    private final LoadSimClient client = new LoadSimClient(baseUrl, new ObjectMapper());
+    private final List<SimDriver> drivers = new ArrayList<>();
+    private final List<Long> customerIds = new ArrayList<>();
+    private final List<Route> routes = loadRoutes();
+    private final Map<Long, Long> bookingCreatedNanos = new ConcurrentHashMap<>();
+    // Link speed of inter-city bookings not yet assigned, by pickup coordinates (the feed can
+    // announce a booking before its creation call returns)
+    private final Map<String, Double> interCitySpeeds = new ConcurrentHashMap<>();
+    private final LongAdder bookingsCreated = new LongAdder();
+    private final LongAdder bookingsAssigned = new LongAdder();
+    private final LongAdder bookingsCompleted = new LongAdder();
+    private final LongAdder interCityCreated = new LongAdder();
+    private final LongAdder interCityCompleted = new LongAdder();
+    private final LongAdder pingsSkipped = new LongAdder();
+    private volatile boolean running;
+
+    public static void main(String[] args) {
+        int exitCode = 0;
+        try {
+            new LoadSimulation().run();
+        } catch (Exception e) {
+            log.error("Load simulation failed", e);
+            exitCode = 1;
+        }
+        System.exit(exitCode);
+    }
+
+    private void run() throws IOException, InterruptedException {
+        Random random = new Random(seed);
+        log.info("Load simulation against {}: {} drivers, {} customers, {} bookings/min ({}% inter-city over {} links), "
+                + "ping every {} ms, {} s", baseUrl, driverCount, customerCount, bookingsPerMinute, interCityPercent,
+                routes.size(), pingIntervalMs, durationSeconds);
+        setUpUsers(random);
+        runLoad();
+        writeReport();
+    }
+
+    // Sign up everybody through AuthController and bring the drivers online
+    private void setUpUsers(Random random) throws InterruptedException {
+        for (int i = 0; i < driverCount; i++) {
+            City city = CITIES[random.nextInt(CITIES.length)];
+            drivers.add(new SimDriver(VEHICLE_TYPES[i % VEHICLE_TYPES.length],
+                    city.latitude() + jitter(random), city.longitude() + jitter(random)));
+        }
+
+        String run = Long.toString(System.currentTimeMillis(), 36);
+        Semaphore permits = new Semaphore(setupConcurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < drivers.size(); i++) {
+                SimDriver driver = drivers.get(i);
+                int index = i;
+                permits.acquire();
+                executor.submit(() -> {
+                    try {
+                        Map<String, Object> signup = new LinkedHashMap<>();
+                        signup.put("email", "driver" + index + "." + run + "@loadsim.local");
+                        signup.put("password", "loadsim");
+                        signup.put("name", "Sim Driver " + index);
+                        signup.put("phone", "90000" + String.format("%05d", index));
+                        signup.put("role", "DRIVER");
+                        signup.put("vehicleType", driver.vehicleType);
+                        signup.put("vehicleNumber", "TN-SIM-" + index);
+                        signup.put("licenseNumber", "SIM" + index);
+                        driver.id = client.call("POST /api/auth/signup", "POST", "/api/auth/signup", signup)
+                                .get("id").asLong();
+                        client.call("PATCH /api/drivers/{id}/status", "PATCH",
+                                "/api/drivers/" + driver.id + "/status", Map.of("isOnline", true));
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+            for (int i = 0; i < customerCount; i++) {
+                int index = i;
+                permits.acquire();
+                executor.submit(() -> {
+                    try {
+                        Map<String, Object> signup = new LinkedHashMap<>();
+                        signup.put("email", "customer" + index + "." + run + "@loadsim.local");
+                        signup.put("password", "loadsim");
+                        signup.put("name", "Sim Customer " + index);
+                        signup.put("phone", "80000" + String.format("%05d", index));
+                        signup.put("role", "CUSTOMER");
+                        long id = client.call("POST /api/auth/signup", "POST", "/api/auth/signup", signup)
+                                .get("id").asLong();
+                        synchronized (customerIds) {
+                            customerIds.add(id);
+                        }
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        }
+        drivers.removeIf(driver -> driver.id == 0);
+        log.info("Load simulation: {} drivers and {} customers ready", drivers.size(), customerIds.size());
+    }
+
+    private void runLoad() throws InterruptedException {
+        running = true;
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+        long ticksPerInterval = Math.max(1, pingIntervalMs / TICK_MS);
+        AtomicLong tick = new AtomicLong();
+
+        // Each driver pings once per interval, spread evenly over the ticks
+        scheduler.scheduleAtFixedRate(() -> {
+            long slot = tick.getAndIncrement() % ticksPerInterval;
+            for (int i = (int) slot; i < drivers.size(); i += (int) ticksPerInterval) {
+                SimDriver driver = drivers.get(i);
+                if (driver.inFlight.compareAndSet(false, true)) {
+                    executor.submit(() -> ping(driver));
+                } else {
+                    pingsSkipped.increment();
+                }
+            }
+        }, 0, TICK_MS, TimeUnit.MILLISECONDS);
+
+        long bookingPeriodMicros = Math.max(1, 60_000_000L / Math.max(1, bookingsPerMinute));
+        scheduler.scheduleAtFixedRate(() -> executor.submit(this::createBooking),
+                0, bookingPeriodMicros, TimeUnit.MICROSECONDS);
+
+        Thread dispatcher = Thread.ofVirtual().name("loadsim-dispatcher").start(() -> dispatch(executor));
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(durationSeconds));
+
+        running = false;
+        scheduler.shutdownNow();
+        dispatcher.interrupt();
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    // A delivery within one city, or along one link of the routing graph
+    private void createBooking() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long customerId = customerIds.get(random.nextInt(customerIds.size()));
+        City pickup;
+        City drop;
+        double spread;
+        Route route = null;
+        if (!routes.isEmpty() && random.nextInt(100) < interCityPercent) {
+            route = routes.get(random.nextInt(routes.size()));
+            boolean reverse = random.nextBoolean();
+            pickup = reverse ? route.to() : route.from();
+            drop = reverse ? route.from() : route.to();
+            spread = 0.2; // within about a kilometre of the town centre
+        } else {
+            pickup = CITIES[random.nextInt(CITIES.length)];
+            drop = pickup;
+            spread = 1.0;
+        }
+
+        double pickupLat = pickup.latitude() + jitter(random) * spread;
+        double pickupLng = pickup.longitude() + jitter(random) * spread;
+        if (route != null) {
+            interCitySpeeds.put(pickupLat + "," + pickupLng, route.speedKmh());
+        }
+
+        Map<String, Object> booking = new LinkedHashMap<>();
+        booking.put("customer", Map.of("id", customerId));
+        booking.put("pickupLocation", pickup.name() + ", Tamil Nadu");
+        booking.put("pickupLatitude", pickupLat);
+        booking.put("pickupLongitude", pickupLng);
+        booking.put("dropLocation", drop.name() + ", Tamil Nadu");
+        booking.put("dropLatitude", drop.latitude() + jitter(random) * spread);
+        booking.put("dropLongitude", drop.longitude() + jitter(random) * spread);
+        booking.put("vehicleType", VEHICLE_TYPES[random.nextInt(VEHICLE_TYPES.length)]);
+
+        long start = System.nanoTime();
+        try {
+            JsonNode created = client.call("POST /api/bookings", "POST", "/api/bookings", booking,
+                    Map.of("Idempotency-Key", UUID.randomUUID().toString()));
+            bookingCreatedNanos.put(created.get("id").asLong(), start);
+            bookingsCreated.increment();
+            if (route != null) {
+                interCityCreated.increment();
+            }
+        } catch (RuntimeException e) {
+            interCitySpeeds.remove(pickupLat + "," + pickupLng);
+            log.debug("Booking creation failed: {}", e.getMessage());
+        }
+    }
+
+    // Follows the driver feed and hands each new booking to the nearest idle driver
+    private void dispatch(ExecutorService executor) {
+        long since = 0;
+        while (running) {
+            try {
+                JsonNode feed = client.call("GET /api/bookings/feed", "GET",
+                        "/api/bookings/feed?since=" + since + "&waitMs=5000", null);
+                since = feed.get("lastSeq").asLong();
+                for (JsonNode change : feed.get("changes")) {
+                    if (!"UPSERT".equals(change.path("op").asText())) {
+                        continue;
+                    }
+                    SimDriver driver = claimNearestIdleDriver(change.path("vehicleType").asText(),
+                            change.path("pickupLatitude").asDouble(), change.path("pickupLongitude").asDouble());
+                    if (driver != null) {
+                        executor.submit(() -> assign(driver, change));
+                    }
+                }
+            } catch (RuntimeException e) {
+                if (running) {
+                    log.debug("Feed poll failed: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private SimDriver claimNearestIdleDriver(String vehicleType, double latitude, double longitude) {
+        SimDriver best = null;
+        double bestDistance = Double.MAX_VALUE;
+        for (SimDriver driver : drivers) {
+            if (driver.busy.get() || !driver.vehicleType.equalsIgnoreCase(vehicleType)) {
+                continue;
+            }
+            double distance = GeoUtils.haversineKm(latitude, longitude, driver.latitude, driver.longitude);
+            if (distance < bestDistance) {
+                best = driver;
+                bestDistance = distance;
+            }
+        }
+        return best != null && best.busy.compareAndSet(false, true) ? best : null;
+    }
+
+    private void assign(SimDriver driver, JsonNode change) {
+        long bookingId = change.get("bookingId").asLong();
+        try {
+            client.call("POST /api/bookings/{id}/assign/{driverId}", "POST",
+                    "/api/bookings/" + bookingId + "/assign/" + driver.id, null);
+            Long createdNanos = bookingCreatedNanos.remove(bookingId);
+            if (createdNanos != null) {
+                client.recorder("dispatch-to-assign").record((System.nanoTime() - createdNanos) / 1_000);
+            }
+            bookingsAssigned.increment();
+            double pickupLat = change.path("pickupLatitude").asDouble();
+            double pickupLng = change.path("pickupLongitude").asDouble();
+            double dropLat = change.path("dropLatitude").asDouble();
+            double dropLng = change.path("dropLongitude").asDouble();
+            Double linkSpeed = interCitySpeeds.remove(pickupLat + "," + pickupLng);
+            driver.trip = new Trip(bookingId, pickupLat, pickupLng, dropLat, dropLng,
+                    linkSpeed != null ? linkSpeed : speedKmh, linkSpeed != null, System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            driver.busy.set(false);
+        }
+    }
+
+    // One location ping; also moves the trip through its statuses when a leg ends
+    private void ping(SimDriver driver) {
+        try {
+            Trip trip = driver.trip;
+            if (trip == null) {
+                // Idle drivers creep around at walking pace
+                driver.latitude += jitter(ThreadLocalRandom.current()) / 200;
+                driver.longitude += jitter(ThreadLocalRandom.current()) / 200;
+                client.call("POST /api/drivers/{id}/location", "POST", "/api/drivers/" + driver.id + "/location",
+                        Map.of("latitude", driver.latitude, "longitude", driver.longitude));
+                return;
+            }
+
+            long now = System.currentTimeMillis();
+            double stepKm = (trip.pickedUp ? trip.speedKmh : speedKmh) * (now - trip.movedAt) / 3_600_000.0;
+            trip.movedAt = now;
+            boolean arrived = trip.pickedUp
+                    ? driver.moveToward(trip.dropLat, trip.dropLng, stepKm)
+                    : driver.moveToward(trip.pickupLat, trip.pickupLng, stepKm);
+            client.call("POST /api/bookings/{id}/location", "POST", "/api/bookings/" + trip.bookingId + "/location",
+                    Map.of("driverId", driver.id, "latitude", driver.latitude, "longitude", driver.longitude));
+
+            if (arrived && !trip.pickedUp) {
+                updateStatus(trip.bookingId, "DRIVER_REACHED_PICKUP");
+                updateStatus(trip.bookingId, "TRIP_STARTED");
+                updateStatus(trip.bookingId, "IN_TRANSIT");
+                trip.pickedUp = true;
+            } else if (arrived) {
+                updateStatus(trip.bookingId, "COMPLETED");
+                updateStatus(trip.bookingId, "PAID");
+                bookingsCompleted.increment();
+                if (trip.interCity) {
+                    interCityCompleted.increment();
+                }
+                driver.trip = null;
+                driver.busy.set(false);
+            }
+        } catch (RuntimeException e) {
+            log.debug("Ping failed for driver {}: {}", driver.id, e.getMessage());
+        } finally {
+            driver.inFlight.set(false);
+        }
+    }
+
+    private void updateStatus(long bookingId, String status) {
+        client.call("PATCH /api/bookings/{id}/status", "PATCH", "/api/bookings/" + bookingId + "/status",
+                Map.of("status", status));
+    }
+
+    private void writeReport() throws IOException {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Load simulation: %d drivers, %d customers, %d bookings/min, %d s%n",
+                drivers.size(), customerIds.size(), bookingsPerMinute, durationSeconds));
+        report.append(String.format("Bookings created %d, assigned %d, completed %d; pings skipped %d%n",
+                bookingsCreated.sum(), bookingsAssigned.sum(), bookingsCompleted.sum(), pingsSkipped.sum()));
+        report.append(String.format("Inter-city bookings created %d, completed %d%n%n",
+                interCityCreated.sum(), interCityCompleted.sum()));
+        report.append(String.format("%-42s %9s %7s %10s %10s %10s %10s%n",
+                "endpoint", "count", "errors", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+        client.recorders().forEach((name, recorder) -> report.append(String.format(
+                "%-42s %9d %7d %10.2f %10.2f %10.2f %10.2f%n",
+                name, recorder.count(), recorder.errors(),
+                recorder.percentile(50) / 1000.0, recorder.percentile(99) / 1000.0,
+                recorder.percentile(99.9) / 1000.0, recorder.max() / 1000.0)));
+
+        log.info("\n{}", report);
+        Path path = Path.of(reportFile);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Files.writeString(path, report);
+        log.info("Load simulation report written to {}", path.toAbsolutePath());
+    }
+
+    // Links of the backend's routing graph whose ends are more than a city apart
+    private static List<Route> loadRoutes() {
+        Map<String, City> nodes = new LinkedHashMap<>();
+        List<Route> routes = new ArrayList<>();
+        try (InputStream in = LoadSimulation.class.getClassLoader().getResourceAsStream(ROUTING_GRAPH)) {
+            if (in == null) {
+                log.warn("{} not on the classpath, only local deliveries", ROUTING_GRAPH);
+                return routes;
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.trim().split("\\s+");
+                if (fields[0].equals("node") && fields.length == 4) {
+                    String name = Character.toUpperCase(fields[1].charAt(0)) + fields[1].substring(1);
+                    nodes.put(fields[1], new City(name, Double.parseDouble(fields[2]), Double.parseDouble(fields[3])));
+                } else if (fields[0].equals("edge") && fields.length == 5) {
+                    City from = nodes.get(fields[1]);
+                    City to = nodes.get(fields[2]);
+                    if (from != null && to != null
+                            && GeoUtils.haversineKm(from.latitude(), from.longitude(), to.latitude(), to.longitude())
+                                    > MIN_INTER_CITY_KM) {
+                        routes.add(new Route(from, to, Double.parseDouble(fields[4])));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot read " + ROUTING_GRAPH, e);
+        }
+        return routes;
+    }
+
+    // About +-5 km around a city centre
+    private static double jitter(Random random) {
+        return (random.nextDouble() - 0.5) * 0.09;
+    }
+
+    private record City(String name, double latitude, double longitude) {
+    }
+
+    private record Route(City from, City to, double speedKmh) {
+    }
+
+    private static final class SimDriver {
+        private final String vehicleType;
+        private volatile long id;
+        private volatile double latitude;
+        private volatile double longitude;
+        private volatile Trip trip;
+        private final AtomicBoolean busy = new AtomicBoolean();
+        private final AtomicBoolean inFlight = new AtomicBoolean();
+
+        SimDriver(String vehicleType, double latitude, double longitude) {
+            this.vehicleType = vehicleType;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+
+        // Moves up to stepKm in a straight line; true once at the target
+        boolean moveToward(double targetLatitude, double targetLongitude, double stepKm) {
+            double remainingKm = GeoUtils.haversineKm(latitude, longitude, targetLatitude, targetLongitude);
+            if (remainingKm <= stepKm) {
+                latitude = targetLatitude;
+                longitude = targetLongitude;
+                return true;
+            }
+            double fraction = stepKm / remainingKm;
+            latitude += (targetLatitude - latitude) * fraction;
+            longitude += (targetLongitude - longitude) * fraction;
+            return false;
+        }
+    }
+
+    private static final class Trip {
+        private final long bookingId;
+        private final double pickupLat;
+        private final double pickupLng;
+        private final double dropLat;
+        private final double dropLng;
+        private final double speedKmh; // from pickup to drop
+        private final boolean interCity;
+        private long movedAt;
+        private boolean pickedUp;
+
+        Trip(long bookingId, double pickupLat, double pickupLng, double dropLat, double dropLng, double speedKmh,
+                boolean interCity, long movedAt) {
+            this.bookingId = bookingId;
+            this.pickupLat = pickupLat;
+            this.pickupLng = pickupLng;
+            this.dropLat = dropLat;
+            this.dropLng = dropLng;
+            this.speedKmh = speedKmh;
+            this.interCity = interCity;
+            this.movedAt = movedAt;
+        }
+    }
+}
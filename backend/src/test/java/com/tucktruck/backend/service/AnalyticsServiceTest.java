@@ -0,0 +1,80 @@
+package com.tucktruck.backend.service;
+
+import com.tucktruck.backend.dto.AnalyticsRollup;
+import com.tucktruck.backend.entity.Booking;
+import com.tucktruck.backend.entity.BookingStatus;
+import com.tucktruck.backend.repository.BookingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AnalyticsServiceTest {
+
+    // Well past the hourly retention
+    private final LocalDateTime old = LocalDate.now().minusDays(200).atStartOfDay();
+    private final LocalDateTime yesterday = LocalDate.now().minusDays(1).atStartOfDay();
+
+    private AnalyticsService analyticsService;
+
+    @BeforeEach
+    void setUp() {
+        BookingRepository bookingRepository = mock(BookingRepository.class);
+        when(bookingRepository.findByStatusIn(anyList())).thenReturn(List.of(
+                completed(old.plusHours(10), 100.0),
+                completed(old.plusHours(20), 50.0),
+                completed(old.plusDays(1).plusHours(12), 30.0),
+                completed(old.plusDays(2).plusHours(5), 7.0),
+                completed(yesterday.plusHours(10), 1000.0),
+                completed(yesterday.plusHours(20), 2000.0)));
+        analyticsService = new AnalyticsService(bookingRepository);
+        ReflectionTestUtils.setField(analyticsService, "hourlyRetentionDays", 90);
+        analyticsService.rebuild();
+    }
+
+    @Test
+    void partialDaysComeFromHoursAndWholeDaysFromDays() {
+        assertTotal(3, 87.0, old.plusHours(12), old.plusDays(2).plusHours(6));
+        assertTotal(2, 37.0, old.plusHours(21), old.plusDays(2).plusHours(6));
+        assertTotal(2, 150.0, old, old.plusDays(1));
+        assertTotal(1, 100.0, old.plusHours(9).plusMinutes(30), old.plusHours(11));
+        assertTotal(0, 0.0, old.plusHours(11), old.plusHours(11));
+    }
+
+    @Test
+    void prunedEdgesFallBackToTheWholeDay() {
+        analyticsService.pruneHourlyBuckets();
+
+        // Both edges are past retention and count their whole day
+        assertTotal(4, 187.0, old.plusHours(12), old.plusDays(2).plusHours(6));
+        assertTotal(2, 150.0, old.plusHours(9), old.plusHours(11));
+        assertTotal(2, 150.0, old, old.plusDays(1));
+        // Recent edges are still exact
+        assertTotal(1, 2000.0, yesterday.plusHours(12), yesterday.plusHours(23));
+        assertTotal(3, 1037.0, old.plusDays(1).plusHours(1), yesterday.plusHours(11));
+    }
+
+    private void assertTotal(long count, double revenue, LocalDateTime from, LocalDateTime to) {
+        AnalyticsRollup total = analyticsService.total(AnalyticsService.Dimension.ALL, null, from, to);
+        assertEquals(count, total.getCompletedBookings());
+        assertEquals(revenue, total.getRevenue(), 0.001);
+    }
+
+    private static Booking completed(LocalDateTime completedAt, double price) {
+        Booking booking = new Booking();
+        booking.setStatus(BookingStatus.COMPLETED);
+        booking.setCompletedAt(completedAt);
+        booking.setFinalPrice(price);
+        booking.setVehicleType("tempo");
+        booking.setPickupLocation("Chennai");
+        return booking;
+    }
+}
@@ -0,0 +1,128 @@
+package com.tucktruck.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tucktruck.backend.cluster.ClusterMessage;
+import com.tucktruck.backend.cluster.ClusterTransport;
+import com.tucktruck.backend.dto.BookingChange;
+import com.tucktruck.backend.dto.BookingFeedResponse;
+import com.tucktruck.backend.entity.Booking;
+import com.tucktruck.backend.entity.BookingStatus;
+import com.tucktruck.backend.entity.User;
+import com.tucktruck.backend.event.BookingChangedEvent;
+import com.tucktruck.backend.repository.BookingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BookingChangeRelayTest {
+
+    private static final Long BOOKING_ID = 5L;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private BookingFeedService bookingFeedService;
+    private Consumer<ClusterMessage> listener;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ClusterTransport clusterTransport = mock(ClusterTransport.class);
+        when(clusterTransport.nodeId()).thenReturn("this-node");
+        BookingRepository bookingRepository = mock(BookingRepository.class);
+        // The booking has long moved on by the time the messages arrive
+        when(bookingRepository.findById(BOOKING_ID)).thenAnswer(invocation -> Optional.of(booking()));
+
+        bookingFeedService = new BookingFeedService(bookingRepository, mock(DriverPresenceService.class));
+        ReflectionTestUtils.setField(bookingFeedService, "capacity", 64);
+        bookingFeedService.init();
+
+        ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+        doAnswer(invocation -> {
+            bookingFeedService.onBookingChanged(invocation.getArgument(0));
+            return null;
+        }).when(eventPublisher).publishEvent(any(Object.class));
+
+        BookingChangeRelay relay = new BookingChangeRelay(clusterTransport, bookingRepository, bookingFeedService,
+                eventPublisher, objectMapper);
+        relay.init();
+        ArgumentCaptor<Consumer<ClusterMessage>> captor = ArgumentCaptor.forClass(Consumer.class);
+        verify(clusterTransport).addListener(captor.capture());
+        listener = captor.getValue();
+    }
+
+    @Test
+    void replaysEveryHopOfAMultiHopTransition() {
+        long since = bookingFeedService.getLastSeq();
+
+        receive(1, BookingStatus.SEARCHING_DRIVER, null);
+        receive(2, BookingStatus.DRIVER_ASSIGNED, BookingStatus.SEARCHING_DRIVER);
+        receive(3, BookingStatus.DRIVER_REACHED_PICKUP, BookingStatus.DRIVER_ASSIGNED);
+
+        BookingFeedResponse response = bookingFeedService.changesSince(since,
+                new BookingFeedService.FeedFilter(null, null, null, null, 9L));
+        List<BookingChange.Op> ops = response.getChanges().stream().map(BookingChange::getOp).toList();
+        assertEquals(List.of(BookingChange.Op.UPSERT, BookingChange.Op.REMOVE, BookingChange.Op.STATUS), ops);
+        assertEquals(BookingStatus.DRIVER_ASSIGNED, response.getChanges().get(1).getStatus());
+        assertEquals(BookingStatus.DRIVER_REACHED_PICKUP, response.getChanges().get(2).getStatus());
+    }
+
+    @Test
+    void gapInOriginSequenceResetsVersions() {
+        receive(1, BookingStatus.SEARCHING_DRIVER, null);
+        long version = bookingFeedService.getVersion(BOOKING_ID);
+        long customerVersion = bookingFeedService.getCustomerVersion(1L);
+        long cursor = bookingFeedService.getLastSeq();
+
+        // seq 2 was lost; seq 3 is about another booking
+        receive(3, BookingStatus.CANCELLED, BookingStatus.SEARCHING_DRIVER, 6L);
+
+        assertNotEquals(version, bookingFeedService.getVersion(BOOKING_ID));
+        assertNotEquals(customerVersion, bookingFeedService.getCustomerVersion(1L));
+        assertTrue(bookingFeedService.changesSince(cursor,
+                new BookingFeedService.FeedFilter(null, null, null, null, null)).isReset());
+    }
+
+    private void receive(long seq, BookingStatus status, BookingStatus previousStatus) {
+        receive(seq, status, previousStatus, BOOKING_ID);
+    }
+
+    private void receive(long seq, BookingStatus status, BookingStatus previousStatus, Long bookingId) {
+        try {
+            String payload = objectMapper.writeValueAsString(
+                    new BookingChangeRelay.BookingChangeMessage(seq, bookingId, status, previousStatus));
+            listener.accept(new ClusterMessage(ClusterMessage.Type.BOOKING_CHANGED, "origin", null, payload));
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static Booking booking() {
+        User customer = new User();
+        customer.setId(1L);
+        User driver = new User();
+        driver.setId(9L);
+        Booking booking = new Booking();
+        booking.setId(BOOKING_ID);
+        booking.setCustomer(customer);
+        booking.setDriver(driver);
+        booking.setVehicleType("tempo");
+        booking.setPickupLocation("Chennai");
+        booking.setDropLocation("Trichy");
+        booking.setStatus(BookingStatus.TRIP_STARTED);
+        return booking;
+    }
+}
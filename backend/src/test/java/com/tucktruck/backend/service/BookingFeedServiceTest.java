@@ -0,0 +1,149 @@
+package com.tucktruck.backend.service;
+
+import com.tucktruck.backend.dto.BookingChange;
+import com.tucktruck.backend.dto.BookingFeedResponse;
+import com.tucktruck.backend.entity.Booking;
+import com.tucktruck.backend.entity.BookingStatus;
+import com.tucktruck.backend.entity.User;
+import com.tucktruck.backend.event.BookingChangedEvent;
+import com.tucktruck.backend.repository.BookingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BookingFeedServiceTest {
+
+    private static final BookingFeedService.FeedFilter EVERYTHING =
+            new BookingFeedService.FeedFilter(null, null, null, null, null);
+
+    private BookingRepository bookingRepository;
+    private BookingFeedService feed;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = mock(BookingRepository.class);
+        feed = new BookingFeedService(bookingRepository, mock(DriverPresenceService.class));
+        ReflectionTestUtils.setField(feed, "capacity", 8);
+        feed.init();
+    }
+
+    @Test
+    void changesSinceReturnsOnlyLaterChanges() {
+        long start = feed.getLastSeq();
+        change(booking(1L, "tempo", 13.08, 80.27, BookingStatus.SEARCHING_DRIVER), null);
+        long cursor = feed.getLastSeq();
+        change(booking(2L, "tempo", 13.08, 80.27, BookingStatus.SEARCHING_DRIVER), null);
+        change(booking(3L, "tempo", 13.08, 80.27, BookingStatus.SEARCHING_DRIVER), null);
+
+        BookingFeedResponse response = feed.changesSince(cursor, EVERYTHING);
+
+        assertFalse(response.isReset());
+        assertEquals(start + 3, response.getLastSeq());
+        assertEquals(List.of(2L, 3L), response.getChanges().stream().map(BookingChange::getBookingId).toList());
+        assertTrue(feed.changesSince(feed.getLastSeq(), EVERYTHING).getChanges().isEmpty());
+    }
+
+    @Test
+    void overwrittenCursorGetsSnapshot() {
+        long start = feed.getLastSeq();
+        Booking pending = booking(1L, "tempo", 13.08, 80.27, BookingStatus.SEARCHING_DRIVER);
+        for (int i = 0; i < 10; i++) {
+            change(pending, null);
+        }
+        when(bookingRepository.findByStatusOrderByCreatedAtAsc(BookingStatus.SEARCHING_DRIVER))
+                .thenReturn(List.of(pending));
+
+        BookingFeedResponse response = feed.changesSince(start, EVERYTHING);
+
+        assertTrue(response.isReset());
+        assertEquals(1, response.getChanges().size());
+        assertEquals(feed.getVersion(1L), response.getChanges().get(0).getSeq());
+    }
+
+    @Test
+    void longPollParksUntilMatchingChange() {
+        long cursor = feed.getLastSeq();
+        BookingFeedService.FeedFilter tempo = new BookingFeedService.FeedFilter("tempo", null, null, null, null);
+
+        DeferredResult<BookingFeedResponse> result = feed.waitForChanges(cursor, tempo, 10_000);
+        assertFalse(result.hasResult());
+
+        change(booking(1L, "pickup", 13.08, 80.27, BookingStatus.SEARCHING_DRIVER), null);
+        assertFalse(result.hasResult());
+
+        change(booking(2L, "tempo", 13.08, 80.27, BookingStatus.SEARCHING_DRIVER), null);
+        assertTrue(result.hasResult());
+        BookingFeedResponse response = (BookingFeedResponse) result.getResult();
+        assertEquals(List.of(2L), response.getChanges().stream().map(BookingChange::getBookingId).toList());
+    }
+
+    @Test
+    void removeReachesDriverWhoMovedOutOfRadius() {
+        long cursor = feed.getLastSeq();
+        Booking booking = booking(1L, "tempo", 13.08, 80.27, BookingStatus.SEARCHING_DRIVER);
+        change(booking, null);
+        BookingFeedService.FeedFilter nearPickup =
+                new BookingFeedService.FeedFilter("tempo", 13.08, 80.27, 10.0, 9L);
+        assertEquals(1, feed.changesSince(cursor, nearPickup).getChanges().size());
+
+        cursor = feed.getLastSeq();
+        booking.setStatus(BookingStatus.CANCELLED);
+        change(booking, BookingStatus.SEARCHING_DRIVER);
+
+        // The driver is now 200 km away, in a different vehicle filter
+        BookingFeedService.FeedFilter farAway = new BookingFeedService.FeedFilter("pickup", 11.0, 79.0, 10.0, 9L);
+        List<BookingChange> changes = feed.changesSince(cursor, farAway).getChanges();
+        assertEquals(1, changes.size());
+        assertEquals(BookingChange.Op.REMOVE, changes.get(0).getOp());
+    }
+
+    @Test
+    void touchUserMovesOnlyThatUsersVersionsAndDeliversNothing() {
+        change(booking(1L, "tempo", 13.08, 80.27, BookingStatus.SEARCHING_DRIVER), null);
+        change(booking(2L, "tempo", 13.08, 80.27, BookingStatus.SEARCHING_DRIVER), null);
+        long cursor = feed.getLastSeq();
+        long otherBooking = feed.getVersion(2L);
+        long otherCustomer = feed.getCustomerVersion(102L);
+        long booking = feed.getVersion(1L);
+        long customer = feed.getCustomerVersion(101L);
+
+        feed.touchUser(101L, List.of(1L));
+
+        assertTrue(feed.getVersion(1L) > booking);
+        assertTrue(feed.getCustomerVersion(101L) > customer);
+        assertEquals(otherBooking, feed.getVersion(2L));
+        assertEquals(otherCustomer, feed.getCustomerVersion(102L));
+        BookingFeedResponse response = feed.changesSince(cursor, EVERYTHING);
+        assertFalse(response.isReset());
+        assertTrue(response.getChanges().isEmpty());
+    }
+
+    private void change(Booking booking, BookingStatus previousStatus) {
+        feed.onBookingChanged(new BookingChangedEvent(booking, previousStatus));
+    }
+
+    private static Booking booking(Long id, String vehicleType, double latitude, double longitude,
+            BookingStatus status) {
+        User customer = new User();
+        customer.setId(100L + id);
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setCustomer(customer);
+        booking.setVehicleType(vehicleType);
+        booking.setPickupLocation("Chennai");
+        booking.setPickupLatitude(latitude);
+        booking.setPickupLongitude(longitude);
+        booking.setDropLocation("Trichy");
+        booking.setStatus(status);
+        return booking;
+    }
+}
@@ -0,0 +1,79 @@
+package com.tucktruck.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.tucktruck.backend.cluster.ClusterTransport;
+import com.tucktruck.backend.entity.Booking;
+import com.tucktruck.backend.entity.BookingStatus;
+import com.tucktruck.backend.entity.User;
+import com.tucktruck.backend.event.BookingChangedEvent;
+import com.tucktruck.backend.repository.BookingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+class BookingResponseCacheTest {
+
+    private BookingFeedService feed;
+    private BookingResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        feed = new BookingFeedService(mock(BookingRepository.class), mock(DriverPresenceService.class));
+        ReflectionTestUtils.setField(feed, "capacity", 8);
+        feed.init();
+        cache = new BookingResponseCache(feed, mock(ClusterTransport.class), mock(BookingRepository.class),
+                new ObjectMapper().registerModule(new JavaTimeModule()),
+                mock(MappingJackson2CborHttpMessageConverter.class),
+                mock(MappingJackson2SmileHttpMessageConverter.class));
+        ReflectionTestUtils.setField(cache, "cacheSize", 10);
+        cache.init();
+    }
+
+    @Test
+    void replicaBodyIsUsedWhenItHasTheEtagVersion() {
+        feed.onBookingChanged(new BookingChangedEvent(booking(3), null));
+        AtomicInteger loads = new AtomicInteger();
+
+        String etag = cache.customerEtag(1L, BookingResponseCache.Format.JSON);
+        cache.getBody(etag, BookingResponseCache.Format.JSON, () -> {
+            loads.incrementAndGet();
+            return List.of(booking(3));
+        });
+
+        assertEquals(1, loads.get());
+        assertEquals(0, cache.getReplicaBehind());
+    }
+
+    @Test
+    void laggingReplicaFallsBackToPrimary() {
+        feed.onBookingChanged(new BookingChangedEvent(booking(3), null));
+        AtomicInteger loads = new AtomicInteger();
+
+        String etag = cache.bookingEtag(5L, BookingResponseCache.Format.JSON);
+        cache.getBody(etag, BookingResponseCache.Format.JSON, () ->
+                loads.incrementAndGet() == 1 ? booking(2) : booking(3));
+
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.getReplicaBehind());
+    }
+
+    private static Booking booking(long version) {
+        User customer = new User();
+        customer.setId(1L);
+        Booking booking = new Booking();
+        booking.setId(5L);
+        booking.setCustomer(customer);
+        booking.setStatus(BookingStatus.SEARCHING_DRIVER);
+        booking.setVersion(version);
+        return booking;
+    }
+}
@@ -0,0 +1,148 @@
+package com.tucktruck.backend.service;
+
+import com.tucktruck.backend.entity.Booking;
+import com.tucktruck.backend.entity.IdempotencyRecord;
+import com.tucktruck.backend.entity.User;
+import com.tucktruck.backend.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyServiceTest {
+
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+    private BookingService bookingService;
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyRecordRepository = mock(IdempotencyRecordRepository.class);
+        bookingService = mock(BookingService.class);
+        idempotencyService = new IdempotencyService(idempotencyRecordRepository, bookingService,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(idempotencyService, "ttlHours", 24L);
+        ReflectionTestUtils.setField(idempotencyService, "cacheSize", 100);
+        idempotencyService.init();
+        when(idempotencyRecordRepository.findByIdempotencyKey("1:key")).thenReturn(Optional.empty());
+        when(bookingService.createBooking(any(Booking.class))).thenAnswer(invocation -> {
+            Booking booking = invocation.getArgument(0);
+            booking.setId(50L);
+            return booking;
+        });
+    }
+
+    @Test
+    void firstRequestInsertsKeyOnceWithBooking() {
+        Booking request = request("Trichy");
+
+        IdempotencyService.Result result = idempotencyService.createBooking("key", request);
+
+        assertFalse(result.replayed());
+        assertSame(request, result.booking());
+        ArgumentCaptor<IdempotencyRecord> saved = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(idempotencyRecordRepository, times(1)).saveAndFlush(saved.capture());
+        assertEquals("1:key", saved.getValue().getIdempotencyKey());
+        assertEquals(50L, saved.getValue().getBookingId());
+        verify(idempotencyRecordRepository, never()).save(any(IdempotencyRecord.class));
+        verify(bookingService, never()).getBookingById(any());
+    }
+
+    @Test
+    void retryReplaysFromCacheAndRejectsDifferentBody() {
+        idempotencyService.createBooking("key", request("Trichy"));
+        Booking stored = new Booking();
+        when(bookingService.getBookingById(50L)).thenReturn(stored);
+
+        IdempotencyService.Result replay = idempotencyService.createBooking("key", request("Trichy"));
+
+        assertTrue(replay.replayed());
+        assertSame(stored, replay.booking());
+        assertThrows(IdempotencyService.KeyReusedException.class,
+                () -> idempotencyService.createBooking("key", request("Madurai")));
+        verify(bookingService, times(1)).createBooking(any(Booking.class));
+    }
+
+    @Test
+    void storedKeyReplaysAndExpiredKeyCreatesAgain() {
+        IdempotencyRecord record = record(LocalDateTime.now().plusHours(1));
+        when(idempotencyRecordRepository.findByIdempotencyKey("1:key")).thenReturn(Optional.of(record));
+        when(bookingService.getBookingById(50L)).thenReturn(new Booking());
+
+        assertTrue(idempotencyService.createBooking("key", request("Trichy")).replayed());
+        verify(bookingService, never()).createBooking(any(Booking.class));
+
+        IdempotencyRecord expired = record(LocalDateTime.now().minusMinutes(1));
+        when(idempotencyRecordRepository.findByIdempotencyKey("2:key")).thenReturn(Optional.of(expired));
+        Booking other = request("Trichy");
+        other.getCustomer().setId(2L);
+
+        assertFalse(idempotencyService.createBooking("key", other).replayed());
+        verify(idempotencyRecordRepository).delete(expired);
+        verify(idempotencyRecordRepository).saveAndFlush(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    void losingConcurrentClaimReplaysWinner() {
+        when(idempotencyRecordRepository.saveAndFlush(any(IdempotencyRecord.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+        when(idempotencyRecordRepository.findByIdempotencyKey("1:key"))
+                .thenReturn(Optional.empty(), Optional.of(record(LocalDateTime.now().plusHours(1))));
+        Booking winner = new Booking();
+        when(bookingService.getBookingById(50L)).thenReturn(winner);
+
+        IdempotencyService.Result result = idempotencyService.createBooking("key", request("Trichy"));
+
+        assertTrue(result.replayed());
+        assertSame(winner, result.booking());
+    }
+
+    @Test
+    void losingClaimWithoutWinnerRowIsInProgress() {
+        when(idempotencyRecordRepository.saveAndFlush(any(IdempotencyRecord.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        assertThrows(IdempotencyService.RequestInProgressException.class,
+                () -> idempotencyService.createBooking("key", request("Trichy")));
+    }
+
+    // The stored row for a first request to Trichy
+    private static IdempotencyRecord record(LocalDateTime expiresAt) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setBookingId(50L);
+        record.setRequestHash(IdempotencyService.requestHash(request("Trichy")));
+        record.setExpiresAt(expiresAt);
+        return record;
+    }
+
+    private static Booking request(String dropLocation) {
+        User customer = new User();
+        customer.setId(1L);
+        Booking booking = new Booking();
+        booking.setCustomer(customer);
+        booking.setPickupLocation("Chennai");
+        booking.setPickupLatitude(13.08);
+        booking.setPickupLongitude(80.27);
+        booking.setDropLocation(dropLocation);
+        booking.setVehicleType("tempo");
+        return booking;
+    }
+}
@@ -0,0 +1,145 @@
+package com.tucktruck.backend.service;
+
+import com.tucktruck.backend.entity.LedgerEntry;
+import com.tucktruck.backend.entity.LedgerEntryType;
+import com.tucktruck.backend.entity.SettlementBatch;
+import com.tucktruck.backend.repository.LedgerEntryRepository;
+import com.tucktruck.backend.repository.SettlementBatchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LedgerServiceTest {
+
+    private LedgerEntryRepository ledgerEntryRepository;
+    private SettlementBatchRepository settlementBatchRepository;
+    private LedgerService ledgerService;
+
+    private final LocalDate yesterday = LocalDate.now().minusDays(1);
+    private final LocalDateTime midnight = LocalDate.now().atStartOfDay();
+
+    @BeforeEach
+    void setUp() {
+        ledgerEntryRepository = mock(LedgerEntryRepository.class);
+        settlementBatchRepository = mock(SettlementBatchRepository.class);
+        ledgerService = new LedgerService(ledgerEntryRepository, settlementBatchRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(ledgerService, "settlementLagMinutes", 0L);
+        when(settlementBatchRepository.saveAndFlush(any(SettlementBatch.class))).thenAnswer(invocation -> {
+            SettlementBatch batch = invocation.getArgument(0);
+            batch.setId(1L);
+            return batch;
+        });
+    }
+
+    @Test
+    void settleStopsAtFirstEntryOfNextDay() {
+        when(settlementBatchRepository.findFirstByOrderByIdDesc()).thenReturn(Optional.empty());
+        when(ledgerEntryRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Limit.class))).thenReturn(List.of(
+                entry(1L, 7L, LedgerEntryType.EARNING, 100.0, yesterday.atTime(10, 0)),
+                entry(2L, 7L, LedgerEntryType.CASH_COLLECTED, -30.0, midnight.minusNanos(1_000_000)),
+                entry(3L, 7L, LedgerEntryType.EARNING, 50.0, midnight),
+                entry(4L, 8L, LedgerEntryType.EARNING, 20.0, midnight.plusHours(1))));
+
+        SettlementBatch batch = ledgerService.settle(yesterday);
+
+        assertEquals(0L, batch.getFromEntryId());
+        assertEquals(2L, batch.getToEntryId());
+        assertEquals(2, batch.getEntryCount());
+        assertEquals(1, batch.getDriverCount());
+        assertEquals(70.0, batch.getTotalPayout());
+        assertEquals(0.0, batch.getTotalCollected());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<LedgerEntry>> saved = ArgumentCaptor.forClass(List.class);
+        verify(ledgerEntryRepository).saveAll(saved.capture());
+        assertEquals(1, saved.getValue().size());
+        LedgerEntry settlement = saved.getValue().get(0);
+        assertEquals(7L, settlement.getDriverId());
+        assertEquals(LedgerEntryType.SETTLEMENT, settlement.getEntryType());
+        assertEquals(-70.0, settlement.getAmount());
+        assertEquals(1L, settlement.getSettlementBatchId());
+    }
+
+    @Test
+    void settleStartsAfterLastBatchAndSkipsItsSettlementEntries() {
+        SettlementBatch last = new SettlementBatch();
+        last.setBusinessDate(yesterday.minusDays(1));
+        last.setToEntryId(10L);
+        when(settlementBatchRepository.findFirstByOrderByIdDesc()).thenReturn(Optional.of(last));
+        when(ledgerEntryRepository.findByIdGreaterThanOrderByIdAsc(eq(10L), any(Limit.class))).thenReturn(List.of(
+                entry(11L, 7L, LedgerEntryType.SETTLEMENT, -70.0, yesterday.atTime(0, 30)),
+                entry(12L, 7L, LedgerEntryType.CASH_COLLECTED, -40.0, yesterday.atTime(9, 0))));
+
+        SettlementBatch batch = ledgerService.settle(yesterday);
+
+        assertEquals(10L, batch.getFromEntryId());
+        assertEquals(12L, batch.getToEntryId());
+        assertEquals(2, batch.getEntryCount());
+        assertEquals(0.0, batch.getTotalPayout());
+        assertEquals(40.0, batch.getTotalCollected());
+    }
+
+    @Test
+    void todayAndSettledDaysAreRejected() {
+        assertThrows(RuntimeException.class, () -> ledgerService.settle(LocalDate.now()));
+
+        SettlementBatch last = new SettlementBatch();
+        last.setBusinessDate(yesterday);
+        last.setToEntryId(10L);
+        when(settlementBatchRepository.findFirstByOrderByIdDesc()).thenReturn(Optional.of(last));
+        assertThrows(LedgerService.AlreadySettledException.class, () -> ledgerService.settle(yesterday));
+        verify(ledgerEntryRepository, never()).findByIdGreaterThanOrderByIdAsc(anyLong(), any(Limit.class));
+    }
+
+    @Test
+    void dayIsNotSettledWithinTheLagAfterMidnight() {
+        // Lag longer than the time since yesterday ended
+        ReflectionTestUtils.setField(ledgerService, "settlementLagMinutes", 24 * 60L + 1);
+
+        assertThrows(RuntimeException.class, () -> ledgerService.settle(yesterday));
+        verify(settlementBatchRepository, never()).findFirstByOrderByIdDesc();
+    }
+
+    @Test
+    void nightlyJobTreatsSettledDayAsDoneElsewhere() {
+        SettlementBatch last = new SettlementBatch();
+        last.setBusinessDate(yesterday);
+        last.setToEntryId(10L);
+        when(settlementBatchRepository.findFirstByOrderByIdDesc()).thenReturn(Optional.of(last));
+
+        assertDoesNotThrow(() -> ledgerService.settleYesterday());
+        verify(settlementBatchRepository, never()).saveAndFlush(any(SettlementBatch.class));
+    }
+
+    private static LedgerEntry entry(Long id, Long driverId, LedgerEntryType type, double amount,
+            LocalDateTime createdAt) {
+        LedgerEntry entry = new LedgerEntry();
+        entry.setId(id);
+        entry.setDriverId(driverId);
+        entry.setEntryType(type);
+        entry.setAmount(amount);
+        entry.setCreatedAt(createdAt);
+        return entry;
+    }
+}
@@ -0,0 +1,76 @@
+package com.tucktruck.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    // 10 ms ticks, 256 slots per level: level 1 starts at 256 ticks, level 2 at 65536
+    private static final long TICK = 10;
+
+    private final TimingWheel<String> wheel = new TimingWheel<>(TICK, 8, 4, 0);
+
+    @Test
+    void pastDeadlineFiresOnNextAdvance() {
+        wheel.advance(5_000);
+        wheel.schedule("late", 1_000);
+
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("late"), wheel.advance(5_000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void deadlineWithinTickFiresOnFollowingTick() {
+        wheel.schedule("a", 15);
+
+        assertTrue(wheel.advance(10).isEmpty());
+        assertEquals(List.of("a"), wheel.advance(20));
+    }
+
+    @Test
+    void levelOneTimerCascadesAndFiresOnItsTick() {
+        wheel.schedule("a", 1_000 * TICK);
+
+        assertTrue(wheel.advance(999 * TICK).isEmpty());
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("a"), wheel.advance(1_000 * TICK));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void levelTwoTimerCascadesThroughEveryLevel() {
+        wheel.schedule("a", 70_000 * TICK + 3);
+        wheel.schedule("b", 70_000 * TICK);
+
+        assertTrue(wheel.advance(65_536 * TICK).isEmpty());
+        assertTrue(wheel.advance(69_999 * TICK).isEmpty());
+        assertEquals(List.of("b"), wheel.advance(70_000 * TICK));
+        assertEquals(List.of("a"), wheel.advance(70_001 * TICK));
+    }
+
+    @Test
+    void advancingPastSeveralDeadlinesReturnsThemInDeadlineOrder() {
+        wheel.schedule("c", 300 * TICK);
+        wheel.schedule("a", 5 * TICK);
+        wheel.schedule("b", 256 * TICK);
+
+        assertEquals(List.of("a", "b", "c"), wheel.advance(1_000 * TICK));
+    }
+
+    @Test
+    void cancelledTimerDoesNotFireAfterCascade() {
+        TimingWheel.Timer<String> timer = wheel.schedule("a", 1_000 * TICK);
+        wheel.schedule("b", 1_000 * TICK);
+
+        assertTrue(wheel.cancel(timer));
+        assertFalse(wheel.cancel(timer));
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("b"), wheel.advance(2_000 * TICK));
+    }
+}
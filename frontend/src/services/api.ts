@@ -1,6 +1,9 @@
 
 const API_URL = 'http://localhost:8080/api';
 
+// Idempotency-Key for one booking submission
+export const newIdempotencyKey = (): string => crypto.randomUUID();
+
 export const api = {
     // Auth
     signup: async (data: any) => {
@@ -47,7 +50,9 @@ export const api = {
     },
 
     // Bookings
-    createBooking: async (bookingData: any) => {
+    // idempotencyKey: create one per booking form submission (newIdempotencyKey()) and pass
+    // the same key again if the user retries that submission, so the backend can dedupe it
+    createBooking: async (bookingData: any, idempotencyKey: string) => {
         // bookingData from frontend might be flat. Backend expects nested objects.
         // e.g. customer: { id: ... }
 
@@ -59,16 +64,30 @@ export const api = {
 
         // Remove flat customerId if it causes issues, but extra fields are usually ignored
 
-        const response = await fetch(`${API_URL}/bookings`, {
-            method: 'POST',
-            headers: { 'Content-Type': 'application/json' },
-            body: JSON.stringify(payload)
-        });
-
-        if (!response.ok) {
-            throw new Error('Failed to create booking');
+        // Network errors, 409 (same key still in progress) and 5xx are retried with the same key
+        for (let attempt = 1; ; attempt++) {
+            let response: Response | undefined;
+            try {
+                response = await fetch(`${API_URL}/bookings`, {
+                    method: 'POST',
+                    headers: { 'Content-Type': 'application/json', 'Idempotency-Key': idempotencyKey },
+                    body: JSON.stringify(payload)
+                });
+            } catch (err) {
+                if (attempt >= 3) throw err;
+            }
+
+            if (response?.ok) {
+                return response.json();
+            }
+            if (response && response.status !== 409 && response.status < 500) {
+                throw new Error('Failed to create booking');
+            }
+            if (attempt >= 3) {
+                throw new Error('Failed to create booking');
+            }
+            await new Promise((resolve) => setTimeout(resolve, 500 * attempt));
         }
-        return response.json();
     },
 
     getCustomerBookings: async (customerId: string) => {